@@ -0,0 +1,26 @@
+#!/bin/sh
+# Builds a full ZIP centroid file for ZipCodeGeocoder from the Census ZCTA
+# gazetteer (public domain). Point geo.zip-centroids at the output, e.g.
+#   geo.zip-centroids=file:/opt/farmers-market/zip-centroids.csv
+#
+# Usage: scripts/zip-centroids.sh [output] [gazetteer-year]
+set -eu
+
+OUTPUT=${1:-zip-centroids.csv}
+YEAR=${2:-2023}
+URL="https://www2.census.gov/geo/docs/maps-data/data/gazetteer/${YEAR}_Gazetteer/${YEAR}_Gaz_zcta_national.zip"
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+curl -fsSL -o "$WORK/zcta.zip" "$URL"
+unzip -q -o "$WORK/zcta.zip" -d "$WORK"
+
+# Tab-separated: GEOID ALAND AWATER ALAND_SQMI AWATER_SQMI INTPTLAT INTPTLONG
+{
+    echo "# zip,latitude,longitude"
+    echo "# ZCTA centroids from the ${YEAR} Census gazetteer"
+    awk -F '\t' 'NR > 1 { gsub(/ /, "", $7); printf "%s,%.4f,%.4f\n", $1, $6, $7 }' "$WORK"/*.txt
+} > "$OUTPUT"
+
+echo "Wrote $(grep -vc '^#' "$OUTPUT") ZIP centroids to $OUTPUT"
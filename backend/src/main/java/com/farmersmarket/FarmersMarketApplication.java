@@ -1,9 +1,17 @@
 package com.farmersmarket;
 
+import com.farmersmarket.model.AbandonedCart;
+import com.farmersmarket.model.PriceHistoryPoint;
+import com.farmersmarket.model.ProductRecommendation;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+// Documents only read and written through MongoTemplate, which AOT cannot discover from a repository
+@RegisterReflectionForBinding({ PriceHistoryPoint.class, ProductRecommendation.class, AbandonedCart.class })
 public class FarmersMarketApplication {
 
     public static void main(String[] args) {
@@ -5,7 +5,9 @@ import com.farmersmarket.model.User;
 import com.farmersmarket.repository.ProductRepository;
 import com.farmersmarket.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +16,7 @@ import java.util.Arrays;
 import java.util.List;
 
 @Component
+@Profile("!loadgen")
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired
@@ -25,8 +28,15 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    // Autoscaled instances can skip the seed check; AOT builds fix @Profile at build time
+    @Value("${app.seed-data:true}")
+    private boolean seedData;
+
     @Override
     public void run(String... args) throws Exception {
+        if (!seedData) {
+            return;
+        }
         // Only initialize data if no users exist
         if (userRepository.count() == 0) {
             initializeUsers();
@@ -47,7 +57,6 @@ public class DataInitializer implements CommandLineRunner {
         admin.setCity("Admin City");
         admin.setState("AC");
         admin.setZipCode("12345");
-        userRepository.save(admin);
 
         // Create farmer users
         User farmer1 = new User();
@@ -61,7 +70,6 @@ public class DataInitializer implements CommandLineRunner {
         farmer1.setCity("Rural Town");
         farmer1.setState("RT");
         farmer1.setZipCode("54321");
-        userRepository.save(farmer1);
 
         User farmer2 = new User();
         farmer2.setFirstName("Sarah");
@@ -74,7 +82,6 @@ public class DataInitializer implements CommandLineRunner {
         farmer2.setCity("Green Valley");
         farmer2.setState("GV");
         farmer2.setZipCode("67890");
-        userRepository.save(farmer2);
 
         // Create customer users
         User customer1 = new User();
@@ -88,7 +95,6 @@ public class DataInitializer implements CommandLineRunner {
         customer1.setCity("Metro City");
         customer1.setState("MC");
         customer1.setZipCode("11111");
-        userRepository.save(customer1);
 
         User customer2 = new User();
         customer2.setFirstName("Bob");
@@ -101,7 +107,8 @@ public class DataInitializer implements CommandLineRunner {
         customer2.setCity("Suburbia");
         customer2.setState("SB");
         customer2.setZipCode("22222");
-        userRepository.save(customer2);
+
+        userRepository.saveAll(Arrays.asList(admin, farmer1, farmer2, customer1, customer2));
     }
 
     private void initializeProducts() {
@@ -125,7 +132,6 @@ public class DataInitializer implements CommandLineRunner {
         product1.setOrganic(true);
         product1.setAvailable(true);
         product1.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1592924357228-91b4e4a8d5a3?w=400"));
-        productRepository.save(product1);
 
         Product product2 = new Product();
         product2.setName("Crisp Organic Lettuce");
@@ -139,7 +145,6 @@ public class DataInitializer implements CommandLineRunner {
         product2.setOrganic(true);
         product2.setAvailable(true);
         product2.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1622206151226-18ca2c9ab4a1?w=400"));
-        productRepository.save(product2);
 
         Product product3 = new Product();
         product3.setName("Sweet Organic Carrots");
@@ -153,7 +158,6 @@ public class DataInitializer implements CommandLineRunner {
         product3.setOrganic(true);
         product3.setAvailable(true);
         product3.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1598170845058-32b9d6a5da37?w=400"));
-        productRepository.save(product3);
 
         // Products from Farmer 2
         Product product4 = new Product();
@@ -168,7 +172,6 @@ public class DataInitializer implements CommandLineRunner {
         product4.setOrganic(true);
         product4.setAvailable(true);
         product4.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1464965911861-f74604f4a762?w=400"));
-        productRepository.save(product4);
 
         Product product5 = new Product();
         product5.setName("Organic Blueberries");
@@ -182,7 +185,6 @@ public class DataInitializer implements CommandLineRunner {
         product5.setOrganic(true);
         product5.setAvailable(true);
         product5.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1498551172505-8ee7ad69f235?w=400"));
-        productRepository.save(product5);
 
         Product product6 = new Product();
         product6.setName("Fresh Organic Spinach");
@@ -196,7 +198,6 @@ public class DataInitializer implements CommandLineRunner {
         product6.setOrganic(true);
         product6.setAvailable(true);
         product6.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1576045057995-568f588f82fb?w=400"));
-        productRepository.save(product6);
 
         Product product7 = new Product();
         product7.setName("Organic Bell Peppers");
@@ -210,7 +211,6 @@ public class DataInitializer implements CommandLineRunner {
         product7.setOrganic(true);
         product7.setAvailable(true);
         product7.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1563565375-f3fdfdbefa83?w=400"));
-        productRepository.save(product7);
 
         Product product8 = new Product();
         product8.setName("Fresh Organic Apples");
@@ -224,6 +224,8 @@ public class DataInitializer implements CommandLineRunner {
         product8.setOrganic(true);
         product8.setAvailable(true);
         product8.setImageUrls(Arrays.asList("https://images.unsplash.com/photo-1560806887-1e4cd0b6cbd6?w=400"));
-        productRepository.save(product8);
+
+        productRepository.saveAll(
+                Arrays.asList(product1, product2, product3, product4, product5, product6, product7, product8));
     }
 }
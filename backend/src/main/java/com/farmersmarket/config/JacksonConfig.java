@@ -0,0 +1,69 @@
+package com.farmersmarket.config;
+
+import com.farmersmarket.model.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.NativeDetector;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+public class JacksonConfig {
+
+    // Replaces reflective getter/setter calls with generated lambdas; Spring Boot
+    // registers every Module bean with the application ObjectMapper. A native image
+    // cannot define classes at run time, so it keeps plain reflection there.
+    @Bean
+    public Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule("NoBlackbird") : new BlackbirdModule();
+    }
+
+    // Money is a plain JSON number with two decimals, as BigDecimal amounts were
+    @Bean
+    public Module moneyModule() {
+        SimpleModule module = new SimpleModule("MoneyModule");
+        module.addSerializer(Money.class, new JsonSerializer<Money>() {
+            @Override
+            public void serialize(Money value, JsonGenerator generator, SerializerProvider provider)
+                    throws IOException {
+                generator.writeNumber(value.toString());
+            }
+        });
+        module.addDeserializer(Money.class, new JsonDeserializer<Money>() {
+            @Override
+            public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                JsonToken token = parser.currentToken();
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    try {
+                        return token == JsonToken.VALUE_NUMBER_INT
+                                ? Money.ofCents(Math.multiplyExact(parser.getLongValue(), 100L))
+                                : Money.of(parser.getDecimalValue());
+                    } catch (ArithmeticException e) {
+                        return (Money) context.handleWeirdNumberValue(Money.class, parser.getNumberValue(),
+                                "amount out of range");
+                    }
+                }
+                if (token == JsonToken.VALUE_STRING) {
+                    try {
+                        return Money.parse(parser.getText());
+                    } catch (NumberFormatException | ArithmeticException e) {
+                        return (Money) context.handleWeirdStringValue(Money.class, parser.getText(),
+                                "not a decimal amount");
+                    }
+                }
+                return (Money) context.handleUnexpectedToken(Money.class, parser);
+            }
+        });
+        return module;
+    }
+}
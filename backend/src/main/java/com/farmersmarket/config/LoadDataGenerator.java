@@ -0,0 +1,254 @@
+package com.farmersmarket.config;
+
+import com.farmersmarket.model.Cart;
+import com.farmersmarket.model.Money;
+import com.farmersmarket.model.Order;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Seeds a large synthetic dataset for load tests when the {@code loadgen}
+ * profile is active (the regular {@link DataInitializer} is skipped).
+ *
+ * Every entity is a pure function of the seed and its index, so the same
+ * settings always produce the same documents and ids regardless of how the
+ * batches are scheduled across threads. Passwords are drawn from a small pool
+ * of {@code loadtest<n>} values whose BCrypt hashes are computed in parallel
+ * up front; hashing one per user would dominate the run.
+ */
+@Component
+@Profile("loadgen")
+public class LoadDataGenerator implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDataGenerator.class);
+
+    private static final int USER_ID = 1;
+    private static final int PRODUCT_ID = 2;
+    private static final int ORDER_ID = 3;
+    private static final int CART_ID = 4;
+
+    private static final String[] FIRST_NAMES = { "Alice", "Bob", "Carmen", "David", "Elena", "Farid", "Grace",
+            "Hiro", "Ines", "Jamal", "Kira", "Luis", "Maya", "Noah", "Olga", "Priya", "Quinn", "Rosa", "Sam", "Tariq" };
+    private static final String[] LAST_NAMES = { "Smith", "Johnson", "Garcia", "Nguyen", "Brown", "Khan", "Silva",
+            "Muller", "Rossi", "Tanaka", "Okafor", "Kowalski", "Dubois", "Hansen", "Lopez", "Patel" };
+    private static final String[] CITIES = { "Green Valley", "Rural Town", "Metro City", "Suburbia", "Riverside",
+            "Hill Park", "Lakeside", "Oak Grove" };
+    private static final String[] STATES = { "CA", "OR", "WA", "NY", "TX", "VT", "CO", "MI" };
+    private static final String[] CATEGORIES = { "vegetables", "fruits", "dairy", "eggs", "meat", "herbs", "grains",
+            "honey" };
+    private static final String[] ADJECTIVES = { "Fresh", "Organic", "Heirloom", "Sweet", "Crisp", "Local",
+            "Seasonal", "Farm" };
+    private static final String[] PRODUCE = { "Tomatoes", "Lettuce", "Carrots", "Strawberries", "Blueberries",
+            "Spinach", "Peppers", "Apples", "Kale", "Potatoes", "Onions", "Pears", "Basil", "Milk", "Eggs", "Honey" };
+    private static final String[] UNITS = { "lb", "kg", "piece", "bunch", "head", "dozen", "jar" };
+    private static final String[] ORDER_STATUSES = { "PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "DELIVERED",
+            "DELIVERED", "CANCELLED" };
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${loadgen.seed:42}")
+    private long seed;
+
+    @Value("${loadgen.farmers:10000}")
+    private long farmers;
+
+    @Value("${loadgen.customers:1000000}")
+    private long customers;
+
+    @Value("${loadgen.products:500000}")
+    private long products;
+
+    @Value("${loadgen.orders:2000000}")
+    private long orders;
+
+    @Value("${loadgen.carts:200000}")
+    private long carts;
+
+    @Value("${loadgen.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${loadgen.parallelism:8}")
+    private int parallelism;
+
+    @Value("${loadgen.distinct-passwords:64}")
+    private int distinctPasswords;
+
+    @Value("${loadgen.drop-existing:false}")
+    private boolean dropExisting;
+
+    private String[] passwordHashes;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (dropExisting) {
+            for (Class<?> type : List.of(User.class, Product.class, Order.class, Cart.class)) {
+                mongoTemplate.remove(new Query(), type);
+            }
+        } else if (mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).estimatedDocumentCount() > 0) {
+            logger.info("Skipping load data generation: users collection is not empty");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            passwordHashes = pool.submit(() -> IntStream.range(0, distinctPasswords).parallel()
+                    .mapToObj(i -> passwordEncoder.encode("loadtest" + i))
+                    .toArray(String[]::new)).get();
+
+            long users = farmers + customers;
+            insertAll(pool, User.class, users, this::user);
+            insertAll(pool, Product.class, products, this::product);
+            insertAll(pool, Order.class, orders, this::order);
+            insertAll(pool, Cart.class, carts, this::cart);
+        } finally {
+            pool.shutdown();
+        }
+
+        logger.info("Generated {} users, {} products, {} orders and {} carts from seed {} in {} ms",
+                farmers + customers, products, orders, carts, seed, System.currentTimeMillis() - start);
+    }
+
+    private <T> void insertAll(ForkJoinPool pool, Class<T> type, long count, LongFunction<T> generator)
+            throws Exception {
+        long batches = (count + batchSize - 1) / batchSize;
+        pool.submit(() -> LongStream.range(0, batches).parallel().forEach(batch -> {
+            long from = batch * batchSize;
+            long to = Math.min(count, from + batchSize);
+            List<T> documents = new ArrayList<>((int) (to - from));
+            for (long i = from; i < to; i++) {
+                documents.add(generator.apply(i));
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+            bulk.insert(documents);
+            bulk.execute();
+        })).get();
+        logger.info("Inserted {} {} documents", count, type.getSimpleName());
+    }
+
+    // Farmers occupy user indexes [0, farmers); customers follow
+    private User user(long i) {
+        SplittableRandom random = random(USER_ID, i);
+        boolean farmer = i < farmers;
+        User user = new User();
+        user.setId(id(USER_ID, i));
+        user.setFirstName(pick(random, FIRST_NAMES));
+        user.setLastName(pick(random, LAST_NAMES));
+        user.setEmail((farmer ? "farmer" : "customer") + i + "@loadtest.farmersmarket.com");
+        user.setPassword(passwordHashes[(int) (i % passwordHashes.length)]);
+        user.setRole(farmer ? "FARMER" : "CUSTOMER");
+        user.setPhoneNumber(String.format("555-%04d", random.nextInt(10000)));
+        user.setAddress((random.nextInt(9000) + 100) + " " + pick(random, LAST_NAMES) + " Road");
+        user.setCity(pick(random, CITIES));
+        user.setState(pick(random, STATES));
+        user.setZipCode(String.format("%05d", random.nextInt(100000)));
+        user.setCreatedAt(pastDate(random, 1095));
+        user.setUpdatedAt(user.getCreatedAt());
+        return user;
+    }
+
+    private Product product(long i) {
+        SplittableRandom random = random(PRODUCT_ID, i);
+        String produce = pick(random, PRODUCE);
+        Product product = new Product();
+        product.setId(id(PRODUCT_ID, i));
+        product.setName(pick(random, ADJECTIVES) + " " + produce);
+        product.setDescription("Locally grown " + produce.toLowerCase() + " harvested fresh for market day.");
+        product.setPrice(BigDecimal.valueOf(random.nextInt(50, 3000), 2));
+        product.setQuantity(random.nextInt(0, 500));
+        product.setCategory(pick(random, CATEGORIES));
+        product.setFarmerId(id(USER_ID, random.nextLong(farmers)));
+        product.setUnit(pick(random, UNITS));
+        product.setOrganic(random.nextInt(10) < 7);
+        product.setAvailable(random.nextInt(10) < 9);
+        product.setCreatedAt(pastDate(random, 730));
+        product.setUpdatedAt(product.getCreatedAt());
+        return product;
+    }
+
+    private Order order(long i) {
+        SplittableRandom random = random(ORDER_ID, i);
+        int itemCount = random.nextInt(1, 6);
+        List<Order.OrderItem> items = new ArrayList<>(itemCount);
+        Money total = Money.ZERO;
+        for (int n = 0; n < itemCount; n++) {
+            Product product = product(random.nextLong(products));
+            Order.OrderItem item = new Order.OrderItem(product.getId(), product.getName(), random.nextInt(1, 6),
+                    Money.of(product.getPrice()));
+            items.add(item);
+            total = total.plus(item.getTotalPrice());
+        }
+
+        Order order = new Order(id(USER_ID, farmers + random.nextLong(customers)), items, total);
+        order.setId(id(ORDER_ID, i));
+        order.setStatus(pick(random, ORDER_STATUSES));
+        order.setPaymentStatus("CANCELLED".equals(order.getStatus()) ? "REFUNDED" : "PAID");
+        order.setPaymentMethod(random.nextBoolean() ? "CARD" : "CASH_ON_DELIVERY");
+        order.setShippingAddress((random.nextInt(9000) + 100) + " " + pick(random, CITIES));
+        order.setBillingAddress(order.getShippingAddress());
+        order.setOrderDate(pastDate(random, 730));
+        order.setUpdatedAt(order.getOrderDate().plusDays(random.nextInt(0, 7)));
+        return order;
+    }
+
+    // Carts are keyed by customer email, matching the authenticated principal name
+    private Cart cart(long i) {
+        SplittableRandom random = random(CART_ID, i);
+        long customer = farmers + (i * customers / Math.max(1, carts));
+        Cart cart = new Cart("customer" + customer + "@loadtest.farmersmarket.com");
+        cart.setId(id(CART_ID, i));
+        int itemCount = random.nextInt(1, 8);
+        List<Cart.CartItem> items = new ArrayList<>(itemCount);
+        for (int n = 0; n < itemCount; n++) {
+            Product product = product(random.nextLong(products));
+            items.add(new Cart.CartItem(product.getId(), product.getName(), random.nextInt(1, 6),
+                    Money.of(product.getPrice()), null));
+        }
+        cart.setCartItems(items);
+        cart.setCreatedAt(pastDate(random, 60));
+        cart.setUpdatedAt(cart.getCreatedAt().plusHours(random.nextInt(0, 48)));
+        return cart;
+    }
+
+    private SplittableRandom random(int type, long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + type * 0xC2B2AE3D27D4EB4FL + index);
+    }
+
+    // 24 hex digits so the ids are stored as ObjectIds, prefixed by entity type
+    private static String id(int type, long index) {
+        return String.format("%02x%022x", type, index);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static LocalDateTime pastDate(SplittableRandom random, int maxDaysAgo) {
+        return LocalDateTime.of(2026, 1, 1, 0, 0).minusMinutes(random.nextLong((long) maxDaysAgo * 24 * 60));
+    }
+}
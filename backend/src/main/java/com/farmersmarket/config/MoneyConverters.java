@@ -0,0 +1,57 @@
+package com.farmersmarket.config;
+
+import com.farmersmarket.model.Money;
+import org.bson.types.Decimal128;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+
+import java.util.List;
+
+/**
+ * Mongo conversions for {@link Money}. Amounts are written as Decimal128 so
+ * they stay exact and usable in aggregations. Reading also accepts the forms
+ * older documents used: strings (BigDecimal order amounts) and doubles
+ * (cart unit prices).
+ */
+public final class MoneyConverters {
+
+    private MoneyConverters() {
+    }
+
+    public static List<Converter<?, ?>> all() {
+        return List.of(new MoneyToDecimal128(), new Decimal128ToMoney(), new StringToMoney(), new DoubleToMoney());
+    }
+
+    @WritingConverter
+    static class MoneyToDecimal128 implements Converter<Money, Decimal128> {
+        @Override
+        public Decimal128 convert(Money source) {
+            return new Decimal128(source.toBigDecimal());
+        }
+    }
+
+    @ReadingConverter
+    static class Decimal128ToMoney implements Converter<Decimal128, Money> {
+        @Override
+        public Money convert(Decimal128 source) {
+            return Money.of(source.bigDecimalValue());
+        }
+    }
+
+    @ReadingConverter
+    static class StringToMoney implements Converter<String, Money> {
+        @Override
+        public Money convert(String source) {
+            return Money.parse(source);
+        }
+    }
+
+    @ReadingConverter
+    static class DoubleToMoney implements Converter<Double, Money> {
+        @Override
+        public Money convert(Double source) {
+            return Money.of(source);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.farmersmarket.config;
+
+import com.mongodb.ReadPreference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    @Value("${mongodb.pool.max-size:100}")
+    private int maxPoolSize;
+
+    @Value("${mongodb.pool.min-size:0}")
+    private int minPoolSize;
+
+    @Value("${mongodb.pool.max-connecting:2}")
+    private int maxConnecting;
+
+    @Value("${mongodb.pool.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    @Value("${mongodb.pool.max-idle-ms:60000}")
+    private long maxIdleMs;
+
+    @Value("${mongodb.socket.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${mongodb.socket.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${mongodb.server-selection-timeout-ms:5000}")
+    private long serverSelectionTimeoutMs;
+
+    @Value("${mongodb.catalog.read-preference:secondaryPreferred}")
+    private String catalogReadPreference;
+
+    @Value("${mongodb.catalog.max-staleness-seconds:90}")
+    private long catalogMaxStalenessSeconds;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(MongoPoolWaitTimeListener waitTimeListener) {
+        // A bounded wait queue makes a slow primary fail fast instead of piling up request threads
+        return builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxPoolSize)
+                        .minSize(minPoolSize)
+                        .maxConnecting(maxConnecting)
+                        .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(maxIdleMs, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(waitTimeListener))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                        .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS));
+    }
+
+    // Picked up by the auto-configured MappingMongoConverter
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(MoneyConverters.all());
+    }
+
+    // Used by repositories, orders and carts: always read your own writes
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setReadPreference(ReadPreference.primary());
+        return template;
+    }
+
+    // Used for public catalog browsing, which tolerates bounded staleness
+    @Bean
+    public MongoTemplate catalogMongoTemplate(MongoDatabaseFactory mongoDatabaseFactory,
+            MongoConverter mongoConverter) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setReadPreference(catalogReadPreference());
+        return template;
+    }
+
+    private ReadPreference catalogReadPreference() {
+        if ("primary".equalsIgnoreCase(catalogReadPreference)) {
+            return ReadPreference.primary();
+        }
+        return ReadPreference.valueOf(catalogReadPreference, Collections.emptyList(),
+                catalogMaxStalenessSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,60 @@
+package com.farmersmarket.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long request threads wait to check a connection out of the
+ * MongoDB pool. Pool size and checked-out gauges are published by Spring
+ * Boot's own Mongo metrics listener.
+ */
+@Component
+public class MongoPoolWaitTimeListener implements ConnectionPoolListener {
+
+    private final ThreadLocal<Long> checkOutStart = new ThreadLocal<>();
+
+    private final Timer checkedOutTimer;
+
+    private final Timer failedTimer;
+
+    public MongoPoolWaitTimeListener(MeterRegistry meterRegistry) {
+        this.checkedOutTimer = Timer.builder("mongodb.driver.pool.wait")
+                .description("Time spent waiting for a pooled MongoDB connection")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("mongodb.driver.pool.wait")
+                .description("Time spent waiting for a pooled MongoDB connection")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        record(checkedOutTimer);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        record(failedTimer);
+    }
+
+    private void record(Timer timer) {
+        Long start = checkOutStart.get();
+        if (start != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            checkOutStart.remove();
+        }
+    }
+}
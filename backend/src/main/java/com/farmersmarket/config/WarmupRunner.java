@@ -0,0 +1,224 @@
+package com.farmersmarket.config;
+
+import com.farmersmarket.model.Product;
+import com.farmersmarket.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the JVM before the instance takes traffic. Opens a set of MongoDB
+ * connections up front, then replays synthetic requests against the hot
+ * read endpoints over loopback so the servlet, security filter, JWT parsing,
+ * controller and Jackson paths are JIT-compiled.
+ *
+ * Warmup starts once Spring Boot declares the application ready, i.e. after
+ * every startup listener such as the catalog index build, and runs on its
+ * own thread. Until it finishes this health indicator reports
+ * OUT_OF_SERVICE; it is part of the readiness group, so a load balancer
+ * polling {@code /actuator/health/readiness} keeps the instance out of
+ * rotation meanwhile. Only reads are issued, so warmup has no side effects.
+ */
+@Component("warmup")
+public class WarmupRunner implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    // Never a registered user, so /api/auth/me answers 404 after the full JWT path
+    private static final String WARMUP_SUBJECT = "warmup@localhost.invalid";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.requests:3000}")
+    private int requests;
+
+    @Value("${warmup.threads:4}")
+    private int threads;
+
+    @Value("${warmup.max-duration-ms:60000}")
+    private long maxDurationMs;
+
+    @Value("${warmup.mongo-connections:10}")
+    private int mongoConnections;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean finished;
+
+    private volatile long durationMs;
+
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !started.compareAndSet(false, true)) {
+            return;
+        }
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (!enabled || port == null) {
+            finished = true;
+            return;
+        }
+        Thread thread = new Thread(() -> warmUp(port), "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public Health health() {
+        if (!finished) {
+            return Health.outOfService().build();
+        }
+        return Health.up().withDetail("durationMs", durationMs).build();
+    }
+
+    private void warmUp(int port) {
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + maxDurationMs;
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(threads, mongoConnections), runnable -> {
+            Thread thread = new Thread(runnable, "warmup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            primeMongoPool(workers);
+            int[] outcome = replayRequests(workers, port, deadline);
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("app.warmup")
+                    .description("Time spent warming up before accepting traffic")
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("Warmup sent {} requests ({} failed) in {} ms", outcome[0], outcome[1],
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (RuntimeException e) {
+            // A failed warmup only means a slower start, never a failed one
+            logger.warn("Warmup aborted", e);
+        } finally {
+            workers.shutdownNow();
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            finished = true;
+        }
+    }
+
+    // Concurrent pings force the driver to open that many pooled connections now
+    private void primeMongoPool(ExecutorService workers) {
+        List<Future<?>> pings = new ArrayList<>(mongoConnections);
+        for (int i = 0; i < mongoConnections; i++) {
+            pings.add(workers.submit(() -> mongoTemplate.executeCommand(new Document("ping", 1))));
+        }
+        for (Future<?> ping : pings) {
+            try {
+                ping.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.debug("Warmup ping failed", e);
+            }
+        }
+    }
+
+    private int[] replayRequests(ExecutorService workers, int port, long deadline) {
+        List<HttpRequest> templates = buildRequests(port);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<Future<?>> loops = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            loops.add(workers.submit(() -> {
+                int n;
+                while ((n = sent.getAndIncrement()) < requests && System.currentTimeMillis() < deadline) {
+                    try {
+                        HttpResponse<Void> response = client.send(templates.get(n % templates.size()),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> loop : loops) {
+            try {
+                loop.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.debug("Warmup worker failed", e);
+            }
+        }
+        return new int[] {Math.min(sent.get(), requests), failed.get()};
+    }
+
+    private List<HttpRequest> buildRequests(int port) {
+        String base = "http://localhost:" + port;
+        List<String> paths = new ArrayList<>(List.of(
+                "/api/products/public/browse?page=0&size=24",
+                "/api/products/public/browse?organic=true&sort=price,asc&page=1&size=24",
+                "/api/products/public/trending"));
+        Query anyProduct = new Query().limit(1);
+        anyProduct.fields().include("id");
+        Product product = mongoTemplate.findOne(anyProduct, Product.class);
+        if (product != null) {
+            paths.add("/api/products/public/" + product.getId());
+            paths.add("/api/products/public/" + product.getId() + "/frequently-bought-together");
+        }
+
+        List<HttpRequest> result = new ArrayList<>();
+        for (String path : paths) {
+            result.add(HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(5)).GET().build());
+        }
+        String token = jwtUtil.generateToken(WARMUP_SUBJECT, "CUSTOMER");
+        result.add(HttpRequest.newBuilder(URI.create(base + "/api/auth/me"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build());
+        return result;
+    }
+}
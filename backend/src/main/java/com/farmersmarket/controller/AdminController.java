@@ -1,7 +1,17 @@
 package com.farmersmarket.controller;
 
+import com.farmersmarket.dto.OrderSearchRequest;
+import com.farmersmarket.dto.OrderSearchResponse;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.User;
+import com.farmersmarket.service.CartExpiryService;
+import com.farmersmarket.service.CatalogIndex;
+import com.farmersmarket.service.OrderArchiveService;
+import com.farmersmarket.service.OrderService;
+import com.farmersmarket.service.RecommendationService;
+import com.farmersmarket.service.TrendingService;
 import com.farmersmarket.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +28,29 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CartExpiryService cartExpiryService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @GetMapping("/orders")
+    public ResponseEntity<OrderSearchResponse> searchOrders(OrderSearchRequest request) {
+        return ResponseEntity.ok(orderService.searchOrders(request));
+    }
+
     @GetMapping("/users")
     public ResponseEntity<List<User>> getAllUsers() {
         List<User> users = userService.findAllUsers();
@@ -36,42 +69,62 @@ public class AdminController {
 
     @GetMapping("/users/{id}")
     public ResponseEntity<?> getUserById(@PathVariable String id) {
-        try {
-            User user = userService.findById(id)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            user.setPassword(null); // Remove password from response
-            return ResponseEntity.ok(user);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        User user = userService.findById(id)
+                .orElseThrow(() -> new NotFoundException("User", id));
+        user.setPassword(null); // Remove password from response
+        return ResponseEntity.ok(user);
     }
 
     @PutMapping("/users/{id}")
     public ResponseEntity<?> updateUser(@PathVariable String id, @RequestBody User userDetails) {
-        try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            updatedUser.setPassword(null); // Remove password from response
-            return ResponseEntity.ok(updatedUser);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        User updatedUser = userService.updateUser(id, userDetails);
+        updatedUser.setPassword(null); // Remove password from response
+        return ResponseEntity.ok(updatedUser);
+    }
+
+    @PatchMapping(value = "/users/{id}", consumes = { "application/merge-patch+json", "application/json" })
+    public ResponseEntity<User> patchUser(@PathVariable String id, @RequestBody JsonNode patch) {
+        User updatedUser = userService.patchUser(id, patch);
+        updatedUser.setPassword(null); // Remove password from response
+        return ResponseEntity.ok(updatedUser);
     }
 
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable String id) {
-        try {
-            userService.deleteUser(id);
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "User deactivated successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        userService.deleteUser(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "User deactivated successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/carts/purge-abandoned")
+    public ResponseEntity<Map<String, Long>> purgeAbandonedCarts() {
+        Map<String, Long> response = new HashMap<>();
+        response.put("purged", cartExpiryService.purgeAbandonedCarts());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/orders/archive")
+    public ResponseEntity<Map<String, Long>> archiveCompletedOrders() {
+        Map<String, Long> response = new HashMap<>();
+        response.put("archived", orderArchiveService.archiveCompletedOrders());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/recommendations/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRecommendations() {
+        Map<String, Integer> response = new HashMap<>();
+        response.put("products", recommendationService.rebuild());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/trending/stats")
+    public ResponseEntity<Map<String, Long>> getTrendingStats() {
+        return ResponseEntity.ok(trendingService.getStats());
+    }
+
+    @GetMapping("/catalog-index/stats")
+    public ResponseEntity<Map<String, Long>> getCatalogIndexStats() {
+        return ResponseEntity.ok(catalogIndex.getStats());
     }
 }
@@ -2,8 +2,13 @@ package com.farmersmarket.controller;
 
 import com.farmersmarket.dto.JwtResponse;
 import com.farmersmarket.dto.LoginRequest;
+import com.farmersmarket.dto.RefreshTokenRequest;
 import com.farmersmarket.dto.RegisterRequest;
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.exception.UnauthorizedException;
 import com.farmersmarket.model.User;
+import com.farmersmarket.service.RefreshTokenService;
 import com.farmersmarket.service.UserService;
 import com.farmersmarket.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +28,11 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:3000")
 public class AuthController {
 
+    private static final UnauthorizedException INVALID_CREDENTIALS =
+            new UnauthorizedException("Invalid email or password");
+
+    private static final ConflictException EMAIL_IN_USE = new ConflictException("Email is already in use");
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -32,65 +42,71 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+    public ResponseEntity<JwtResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            User user = userService.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = userService.findByEmail(loginRequest.getEmail())
+                .orElseThrow(() -> INVALID_CREDENTIALS);
 
-            String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user);
 
-            return ResponseEntity.ok(new JwtResponse(token, user.getId(), user.getEmail(), user.getRole()));
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid email or password");
-            return ResponseEntity.badRequest().body(error);
-        }
+        return ResponseEntity.ok(new JwtResponse(token, refreshToken, user.getId(), user.getEmail(),
+                user.getRole()));
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
-        try {
-            if (userService.existsByEmail(registerRequest.getEmail())) {
-                Map<String, String> error = new HashMap<>();
-                error.put("error", "Email is already in use");
-                return ResponseEntity.badRequest().body(error);
-            }
-
-            User user = userService.createUser(registerRequest);
-
-            String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
-
-            return ResponseEntity.ok(new JwtResponse(token, user.getId(), user.getEmail(), user.getRole()));
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Registration failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+    public ResponseEntity<JwtResponse> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        if (userService.existsByEmail(registerRequest.getEmail())) {
+            throw EMAIL_IN_USE;
         }
+
+        User user = userService.createUser(registerRequest);
+
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user);
+
+        return ResponseEntity.ok(new JwtResponse(token, refreshToken, user.getId(), user.getEmail(),
+                user.getRole()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<JwtResponse> refresh(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        User user = rotation.getUser();
+
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+
+        return ResponseEntity.ok(new JwtResponse(token, rotation.getRefreshToken(), user.getId(),
+                user.getEmail(), user.getRole()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest logoutRequest) {
+        refreshTokenService.revoke(logoutRequest.getRefreshToken());
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Logged out successfully");
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser() {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String email = authentication.getName();
-
-            User user = userService.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            // Remove password from response
-            user.setPassword(null);
-
-            return ResponseEntity.ok(user);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "User not found");
-            return ResponseEntity.badRequest().body(error);
-        }
+    public ResponseEntity<User> getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String email = authentication.getName();
+
+        User user = userService.findByEmail(email)
+                .orElseThrow(() -> new NotFoundException("User", null));
+
+        // Remove password from response
+        user.setPassword(null);
+
+        return ResponseEntity.ok(user);
     }
 }
@@ -1,5 +1,7 @@
 package com.farmersmarket.controller;
 
+import com.farmersmarket.dto.AddToCartRequest;
+import com.farmersmarket.dto.UpdateCartItemRequest;
 import com.farmersmarket.model.Cart;
 import com.farmersmarket.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,63 +29,35 @@ public class CartController {
     }
 
     @PostMapping("/add")
-    public ResponseEntity<?> addToCart(@RequestBody Map<String, Object> request, Authentication authentication) {
-        try {
-            String customerId = getCurrentUserId(authentication);
-            String productId = (String) request.get("productId");
-            Integer quantity = (Integer) request.get("quantity");
-
-            Cart cart = cartService.addToCart(customerId, productId, quantity);
-            return ResponseEntity.ok(cart);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+    public ResponseEntity<Cart> addToCart(@Valid @RequestBody AddToCartRequest request,
+            Authentication authentication) {
+        String customerId = getCurrentUserId(authentication);
+        Cart cart = cartService.addToCart(customerId, request.getProductId(), request.getQuantity());
+        return ResponseEntity.ok(cart);
     }
 
     @PutMapping("/update")
-    public ResponseEntity<?> updateCartItem(@RequestBody Map<String, Object> request, Authentication authentication) {
-        try {
-            String customerId = getCurrentUserId(authentication);
-            String productId = (String) request.get("productId");
-            Integer quantity = (Integer) request.get("quantity");
-
-            Cart cart = cartService.updateCartItem(customerId, productId, quantity);
-            return ResponseEntity.ok(cart);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+    public ResponseEntity<Cart> updateCartItem(@Valid @RequestBody UpdateCartItemRequest request,
+            Authentication authentication) {
+        String customerId = getCurrentUserId(authentication);
+        Cart cart = cartService.updateCartItem(customerId, request.getProductId(), request.getQuantity());
+        return ResponseEntity.ok(cart);
     }
 
     @DeleteMapping("/remove/{productId}")
     public ResponseEntity<?> removeFromCart(@PathVariable String productId, Authentication authentication) {
-        try {
-            String customerId = getCurrentUserId(authentication);
-            Cart cart = cartService.removeFromCart(customerId, productId);
-            return ResponseEntity.ok(cart);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        String customerId = getCurrentUserId(authentication);
+        Cart cart = cartService.removeFromCart(customerId, productId);
+        return ResponseEntity.ok(cart);
     }
 
     @DeleteMapping("/clear")
     public ResponseEntity<?> clearCart(Authentication authentication) {
-        try {
-            String customerId = getCurrentUserId(authentication);
-            cartService.clearCart(customerId);
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Cart cleared successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        String customerId = getCurrentUserId(authentication);
+        cartService.clearCart(customerId);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Cart cleared successfully");
+        return ResponseEntity.ok(response);
     }
 
     private String getCurrentUserId(Authentication authentication) {
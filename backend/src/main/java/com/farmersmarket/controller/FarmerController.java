@@ -0,0 +1,84 @@
+package com.farmersmarket.controller;
+
+import com.farmersmarket.dto.BulkInventoryRequest;
+import com.farmersmarket.dto.BulkInventoryResponse;
+import com.farmersmarket.dto.ImageUploadResponse;
+import com.farmersmarket.dto.InventoryAdjustment;
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.model.User;
+import com.farmersmarket.security.Role;
+import com.farmersmarket.service.ImageStorageService;
+import com.farmersmarket.service.ProductService;
+import com.farmersmarket.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.Valid;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/farmer")
+@CrossOrigin(origins = "http://localhost:3000")
+public class FarmerController {
+
+    private static final String IMAGE_PATH = "/api/images/";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Value("${inventory.bulk.max-items:10000}")
+    private int maxBulkItems;
+
+    @PostMapping("/inventory/bulk")
+    public ResponseEntity<BulkInventoryResponse> adjustInventory(@Valid @RequestBody BulkInventoryRequest request,
+            Authentication authentication) {
+        List<InventoryAdjustment> adjustments = request.getAdjustments();
+        if (adjustments.size() > maxBulkItems) {
+            throw new BadRequestException("At most " + maxBulkItems + " adjustments are allowed per request");
+        }
+        // Per-item results are matched by product id, so each may appear only once
+        Set<String> seen = new HashSet<>();
+        for (InventoryAdjustment adjustment : adjustments) {
+            if (!seen.add(adjustment.getProductId())) {
+                throw new BadRequestException("Duplicate product id: " + adjustment.getProductId());
+            }
+        }
+
+        // Products are owned by user id, not by the email in the token
+        User farmer = userService.findByEmail(authentication.getName())
+                .orElseThrow(() -> new NotFoundException("User", null));
+        boolean admin = Role.of(authentication) == Role.ADMIN;
+        return ResponseEntity.ok(productService.adjustInventory(farmer.getId(), admin, adjustments));
+    }
+
+    @PostMapping("/products/{id}/images")
+    public ResponseEntity<ImageUploadResponse> uploadImage(@PathVariable String id,
+            @RequestParam("file") MultipartFile file, Authentication authentication) {
+        User farmer = userService.findByEmail(authentication.getName())
+                .orElseThrow(() -> new NotFoundException("User", null));
+        boolean admin = Role.of(authentication) == Role.ADMIN;
+        // Fail fast on ownership before storing anything
+        productService.getProductById(id)
+                .filter(product -> admin || farmer.getId().equals(product.getFarmerId()))
+                .orElseThrow(() -> new NotFoundException("Product", id));
+
+        String[] names = imageStorageService.store(file);
+        ImageUploadResponse response = new ImageUploadResponse(IMAGE_PATH + names[0], IMAGE_PATH + names[1],
+                IMAGE_PATH + names[2]);
+        productService.addImage(id, farmer.getId(), admin, response.getUrl());
+        return ResponseEntity.ok(response);
+    }
+}
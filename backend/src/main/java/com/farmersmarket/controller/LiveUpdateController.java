@@ -0,0 +1,50 @@
+package com.farmersmarket.controller;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.model.User;
+import com.farmersmarket.service.LiveUpdateService;
+import com.farmersmarket.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/live")
+@CrossOrigin(origins = "http://localhost:3000")
+public class LiveUpdateController {
+
+    private static final int MAX_PRODUCT_IDS = 100;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping(value = "/products", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamProducts(@RequestParam String ids) {
+        List<String> productIds = Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (productIds.isEmpty() || productIds.size() > MAX_PRODUCT_IDS) {
+            throw new BadRequestException("Between 1 and " + MAX_PRODUCT_IDS + " product ids are required");
+        }
+        return ResponseEntity.ok(liveUpdateService.subscribeToProducts(productIds));
+    }
+
+    @GetMapping(value = "/orders", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamOrders(Authentication authentication) {
+        // Orders are keyed by user id, not by the email in the token
+        User user = userService.findByEmail(authentication.getName())
+                .orElseThrow(() -> new NotFoundException("User", null));
+        return ResponseEntity.ok(liveUpdateService.subscribeToOrders(user.getId()));
+    }
+}
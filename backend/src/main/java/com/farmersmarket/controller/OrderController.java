@@ -1,6 +1,10 @@
 package com.farmersmarket.controller;
 
+import com.farmersmarket.dto.OrderStatusUpdateRequest;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.Order;
+import com.farmersmarket.security.Role;
+import com.farmersmarket.service.CartService;
 import com.farmersmarket.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -20,90 +24,64 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CartService cartService;
+
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order) {
-        try {
-            Order createdOrder = orderService.createOrder(order);
-            return ResponseEntity.ok(createdOrder);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order, Authentication authentication) {
+        cartService.prepareCheckout(getCurrentUserId(authentication));
+        Order createdOrder = orderService.createOrder(order);
+        return ResponseEntity.ok(createdOrder);
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders(Authentication authentication) {
-        String userRole = authentication.getAuthorities().iterator().next().getAuthority();
-
-        if (userRole.equals("ROLE_ADMIN")) {
+    public ResponseEntity<List<Order>> getAllOrders(Authentication authentication,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        if (Role.of(authentication) == Role.ADMIN) {
             List<Order> orders = orderService.getAllOrders();
             return ResponseEntity.ok(orders);
         } else {
             // For customers, return only their orders
             String customerId = getCurrentUserId(authentication);
-            List<Order> orders = orderService.getOrdersByCustomer(customerId);
+            List<Order> orders = orderService.getOrdersByCustomer(customerId, includeArchived);
             return ResponseEntity.ok(orders);
         }
     }
 
     @GetMapping("/customer")
-    public ResponseEntity<List<Order>> getCustomerOrders(Authentication authentication) {
+    public ResponseEntity<List<Order>> getCustomerOrders(Authentication authentication,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         String customerId = getCurrentUserId(authentication);
-        List<Order> orders = orderService.getOrdersByCustomer(customerId);
+        List<Order> orders = orderService.getOrdersByCustomer(customerId, includeArchived);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getOrderById(@PathVariable String id) {
-        try {
-            Order order = orderService.getOrderById(id)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-            return ResponseEntity.ok(order);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        Order order = orderService.getOrderById(id)
+                .orElseThrow(() -> new NotFoundException("Order", id));
+        return ResponseEntity.ok(order);
     }
 
     @PutMapping("/{id}/status")
-    public ResponseEntity<?> updateOrderStatus(@PathVariable String id, @RequestBody Map<String, String> statusUpdate) {
-        try {
-            String status = statusUpdate.get("status");
-            Order updatedOrder = orderService.updateOrderStatus(id, status);
-            return ResponseEntity.ok(updatedOrder);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+    public ResponseEntity<Order> updateOrderStatus(@PathVariable String id,
+            @Valid @RequestBody OrderStatusUpdateRequest statusUpdate) {
+        Order updatedOrder = orderService.updateOrderStatus(id, statusUpdate.getStatus());
+        return ResponseEntity.ok(updatedOrder);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateOrder(@PathVariable String id, @Valid @RequestBody Order orderDetails) {
-        try {
-            Order updatedOrder = orderService.updateOrder(id, orderDetails);
-            return ResponseEntity.ok(updatedOrder);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        Order updatedOrder = orderService.updateOrder(id, orderDetails);
+        return ResponseEntity.ok(updatedOrder);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteOrder(@PathVariable String id) {
-        try {
-            orderService.deleteOrder(id);
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Order deleted successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        orderService.deleteOrder(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Order deleted successfully");
+        return ResponseEntity.ok(response);
     }
 
     private String getCurrentUserId(Authentication authentication) {
@@ -1,15 +1,35 @@
 package com.farmersmarket.controller;
 
+import com.farmersmarket.dto.NearbyProductResponse;
+import com.farmersmarket.dto.PriceHistoryBucket;
+import com.farmersmarket.dto.ProductBrowseRequest;
+import com.farmersmarket.dto.ProductBrowseResponse;
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.Product;
+import com.farmersmarket.model.User;
+import com.farmersmarket.security.Role;
+import com.farmersmarket.service.PriceHistoryService;
 import com.farmersmarket.service.ProductService;
+import com.farmersmarket.service.RecommendationService;
+import com.farmersmarket.service.TrendingService;
+import com.farmersmarket.service.UserService;
+import com.farmersmarket.util.ZipCodeGeocoder;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/products")
@@ -19,6 +39,21 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ZipCodeGeocoder zipCodeGeocoder;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private UserService userService;
+
     @GetMapping("/public")
     public ResponseEntity<List<Product>> getAllProducts() {
         List<Product> products = productService.getAvailableProducts();
@@ -43,55 +78,87 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/public/browse")
+    public ResponseEntity<?> browseProducts(ProductBrowseRequest request) {
+        ProductBrowseResponse response = productService.browseProducts(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/public/nearby")
+    public ResponseEntity<?> getNearbyProducts(@RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) String zipCode,
+            @RequestParam(defaultValue = "50") double radiusKm) {
+        GeoJsonPoint point = lat != null && lng != null
+                ? new GeoJsonPoint(lng, lat)
+                : zipCodeGeocoder.geocode(zipCode);
+        if (point == null) {
+            throw new BadRequestException("A location (lat and lng) or a known zipCode is required");
+        }
+        List<NearbyProductResponse> products = productService.getNearbyProducts(point, radiusKm);
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping("/public/trending")
+    public ResponseEntity<List<Product>> getTrendingProducts(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.getTrending(Math.max(limit, 1)));
+    }
+
     @GetMapping("/public/{id}")
     public ResponseEntity<?> getProductById(@PathVariable String id) {
-        try {
-            Product product = productService.getProductById(id)
-                    .orElseThrow(() -> new RuntimeException("Product not found"));
-            return ResponseEntity.ok(product);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        Product product = productService.getProductById(id)
+                .orElseThrow(() -> new NotFoundException("Product", id));
+        return ResponseEntity.ok(product);
+    }
+
+    @GetMapping("/public/{id}/frequently-bought-together")
+    public ResponseEntity<List<Product>> getFrequentlyBoughtTogether(@PathVariable String id,
+            @RequestParam(defaultValue = "6") int limit) {
+        List<Product> products = recommendationService.getFrequentlyBoughtTogether(id,
+                Math.min(Math.max(limit, 1), 20));
+        // Recomputed nightly; a few minutes of staleness is invisible to shoppers
+        return ResponseEntity.ok().cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic()).body(products);
+    }
+
+    @GetMapping("/public/{id}/price-history")
+    public ResponseEntity<?> getPriceHistory(@PathVariable String id,
+            @RequestParam(defaultValue = "day") String interval,
+            @RequestParam(defaultValue = "30") int days) {
+        Instant to = Instant.now();
+        List<PriceHistoryBucket> history = priceHistoryService.getHistory(id, interval,
+                to.minus(days, ChronoUnit.DAYS), to);
+        return ResponseEntity.ok(history);
     }
 
     @PostMapping
     public ResponseEntity<?> createProduct(@Valid @RequestBody Product product) {
-        try {
-            Product createdProduct = productService.createProduct(product);
-            return ResponseEntity.ok(createdProduct);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        Product createdProduct = productService.createProduct(product);
+        return ResponseEntity.ok(createdProduct);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable String id, @Valid @RequestBody Product productDetails) {
-        try {
-            Product updatedProduct = productService.updateProduct(id, productDetails);
-            return ResponseEntity.ok(updatedProduct);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        Product updatedProduct = productService.updateProduct(id, productDetails);
+        return ResponseEntity.ok(updatedProduct);
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { "application/merge-patch+json", "application/json" })
+    public ResponseEntity<Product> patchProduct(@PathVariable String id, @RequestBody JsonNode patch,
+            Authentication authentication) {
+        // Products are owned by user id, not by the email in the token
+        User farmer = userService.findByEmail(authentication.getName())
+                .orElseThrow(() -> new NotFoundException("User", null));
+        boolean admin = Role.of(authentication) == Role.ADMIN;
+        Product updatedProduct = productService.patchProduct(id, farmer.getId(), admin, patch);
+        return ResponseEntity.ok(updatedProduct);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable String id) {
-        try {
-            productService.deleteProduct(id);
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Product deleted successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        productService.deleteProduct(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Product deleted successfully");
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/farmer/{farmerId}")
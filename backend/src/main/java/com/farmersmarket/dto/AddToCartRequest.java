@@ -0,0 +1,36 @@
+package com.farmersmarket.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+public class AddToCartRequest {
+    @NotBlank
+    private String productId;
+
+    @Min(1)
+    private int quantity;
+
+    public AddToCartRequest() {
+    }
+
+    public AddToCartRequest(String productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
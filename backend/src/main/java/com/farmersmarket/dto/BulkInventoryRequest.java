@@ -0,0 +1,27 @@
+package com.farmersmarket.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class BulkInventoryRequest {
+    @NotEmpty
+    @Valid
+    private List<InventoryAdjustment> adjustments;
+
+    public BulkInventoryRequest() {
+    }
+
+    public BulkInventoryRequest(List<InventoryAdjustment> adjustments) {
+        this.adjustments = adjustments;
+    }
+
+    public List<InventoryAdjustment> getAdjustments() {
+        return adjustments;
+    }
+
+    public void setAdjustments(List<InventoryAdjustment> adjustments) {
+        this.adjustments = adjustments;
+    }
+}
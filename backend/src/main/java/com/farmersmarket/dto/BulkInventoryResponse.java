@@ -0,0 +1,42 @@
+package com.farmersmarket.dto;
+
+import java.util.List;
+
+public class BulkInventoryResponse {
+    private int applied;
+    private int failed;
+    private List<InventoryAdjustmentResult> results;
+
+    public BulkInventoryResponse() {
+    }
+
+    public BulkInventoryResponse(int applied, int failed, List<InventoryAdjustmentResult> results) {
+        this.applied = applied;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<InventoryAdjustmentResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<InventoryAdjustmentResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,40 @@
+package com.farmersmarket.dto;
+
+public class ImageUploadResponse {
+    private String url;
+    private String mediumUrl;
+    private String thumbnailUrl;
+
+    public ImageUploadResponse() {
+    }
+
+    public ImageUploadResponse(String url, String mediumUrl, String thumbnailUrl) {
+        this.url = url;
+        this.mediumUrl = mediumUrl;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+}
@@ -0,0 +1,61 @@
+package com.farmersmarket.dto;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * One stock change: either an absolute {@code quantity} or a relative
+ * {@code delta}, never both.
+ */
+public class InventoryAdjustment {
+    @NotBlank
+    private String productId;
+
+    @Min(0)
+    private Integer quantity;
+
+    private Integer delta;
+
+    public InventoryAdjustment() {
+    }
+
+    public InventoryAdjustment(String productId, Integer quantity, Integer delta) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.delta = delta;
+    }
+
+    @AssertTrue(message = "exactly one of quantity or delta is required")
+    public boolean isExactlyOneChange() {
+        return (quantity == null) != (delta == null);
+    }
+
+    public boolean isAbsolute() {
+        return quantity != null;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
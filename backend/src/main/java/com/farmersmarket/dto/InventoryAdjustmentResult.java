@@ -0,0 +1,46 @@
+package com.farmersmarket.dto;
+
+public class InventoryAdjustmentResult {
+    public static final String APPLIED = "APPLIED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String NOT_OWNER = "NOT_OWNER";
+    public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+    public static final String NOT_APPLIED = "NOT_APPLIED";
+
+    private String productId;
+    private String status;
+    private Integer quantity; // Stock after the batch, when known
+
+    public InventoryAdjustmentResult() {
+    }
+
+    public InventoryAdjustmentResult(String productId, String status, Integer quantity) {
+        this.productId = productId;
+        this.status = status;
+        this.quantity = quantity;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
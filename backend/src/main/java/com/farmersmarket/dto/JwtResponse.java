@@ -2,6 +2,7 @@ package com.farmersmarket.dto;
 
 public class JwtResponse {
     private String token;
+    private String refreshToken;
     private String type = "Bearer";
     private String id;
     private String email;
@@ -17,6 +18,11 @@ public class JwtResponse {
         this.role = role;
     }
 
+    public JwtResponse(String token, String refreshToken, String id, String email, String role) {
+        this(token, id, email, role);
+        this.refreshToken = refreshToken;
+    }
+
     public String getToken() {
         return token;
     }
@@ -25,6 +31,14 @@ public class JwtResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public String getType() {
         return type;
     }
@@ -0,0 +1,32 @@
+package com.farmersmarket.dto;
+
+import com.farmersmarket.model.Product;
+
+public class NearbyProductResponse {
+    private Product product;
+    private double distanceKm; // Distance from the search point to the product's farm
+
+    public NearbyProductResponse() {
+    }
+
+    public NearbyProductResponse(Product product, double distanceKm) {
+        this.product = product;
+        this.distanceKm = distanceKm;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
@@ -0,0 +1,55 @@
+package com.farmersmarket.dto;
+
+import com.farmersmarket.model.Order;
+
+import java.util.List;
+
+public class OrderSearchResponse {
+    private List<Order> orders;
+    private String nextCursor; // null on the last page
+    private Long total; // Only computed for the first page
+    private boolean totalExact; // false when estimated or capped
+
+    public OrderSearchResponse() {
+    }
+
+    public OrderSearchResponse(List<Order> orders, String nextCursor, Long total, boolean totalExact) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+        this.total = total;
+        this.totalExact = totalExact;
+    }
+
+    // Getters and Setters
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public void setTotalExact(boolean totalExact) {
+        this.totalExact = totalExact;
+    }
+}
@@ -0,0 +1,25 @@
+package com.farmersmarket.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+public class OrderStatusUpdateRequest {
+    @NotBlank
+    @Pattern(regexp = "PENDING|CONFIRMED|SHIPPED|DELIVERED|CANCELLED")
+    private String status;
+
+    public OrderStatusUpdateRequest() {
+    }
+
+    public OrderStatusUpdateRequest(String status) {
+        this.status = status;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,65 @@
+package com.farmersmarket.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class PriceHistoryBucket {
+    private Instant bucket; // Start of the hour or day
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal avgPrice;
+    private Integer quantity; // Last recorded quantity in the bucket
+    private long samples;
+
+    public PriceHistoryBucket() {
+    }
+
+    // Getters and Setters
+    public Instant getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(Instant bucket) {
+        this.bucket = bucket;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public BigDecimal getAvgPrice() {
+        return avgPrice;
+    }
+
+    public void setAvgPrice(BigDecimal avgPrice) {
+        this.avgPrice = avgPrice;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+}
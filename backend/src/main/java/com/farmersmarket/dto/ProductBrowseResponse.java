@@ -0,0 +1,67 @@
+package com.farmersmarket.dto;
+
+import com.farmersmarket.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductBrowseResponse {
+    private List<Product> products;
+    private long total;
+    private int page;
+    private int size;
+    private Map<String, Map<String, Long>> facets; // facet name -> value -> matching product count
+
+    public ProductBrowseResponse() {
+    }
+
+    public ProductBrowseResponse(List<Product> products, long total, int page, int size,
+            Map<String, Map<String, Long>> facets) {
+        this.products = products;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.facets = facets;
+    }
+
+    // Getters and Setters
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<Product> products) {
+        this.products = products;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,38 @@
+package com.farmersmarket.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class UpdateCartItemRequest {
+    @NotBlank
+    private String productId;
+
+    @NotNull
+    @Min(0)
+    private Integer quantity; // 0 removes the item
+
+    public UpdateCartItemRequest() {
+    }
+
+    public UpdateCartItemRequest(String productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,39 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+/**
+ * Base class for expected, client-facing failures such as an unknown id or
+ * insufficient stock. These are ordinary outcomes rather than bugs, so no
+ * stack trace is captured and no suppressed exceptions are tracked; that
+ * makes them cheap to throw and safe to share as constants. The
+ * {@code GlobalExceptionHandler} turns them into a response with
+ * {@link #getStatus()} and {@link #getBody()}.
+ */
+public abstract class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    private Map<String, String> body;
+
+    protected ApiException(HttpStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    // Built at most once per instance, so shared constants reuse their body
+    public Map<String, String> getBody() {
+        Map<String, String> result = body;
+        if (result == null) {
+            result = Map.of("error", getMessage());
+            body = result;
+        }
+        return result;
+    }
+}
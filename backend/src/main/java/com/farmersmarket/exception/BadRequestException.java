@@ -0,0 +1,13 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The request itself is invalid, e.g. an unsupported parameter value.
+ */
+public class BadRequestException extends ApiException {
+
+    public BadRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+}
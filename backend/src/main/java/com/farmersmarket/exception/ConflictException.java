@@ -0,0 +1,14 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The request is valid but conflicts with the current state, e.g. not enough
+ * stock or an email that is already registered.
+ */
+public class ConflictException extends ApiException {
+
+    public ConflictException(String message) {
+        super(HttpStatus.CONFLICT, message);
+    }
+}
@@ -0,0 +1,88 @@
+package com.farmersmarket.exception;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps exceptions thrown by controllers to {"error": ...} responses with the
+ * matching status code. Fixed messages use preallocated bodies.
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    private static final Map<String, String> INVALID_CREDENTIALS = Map.of("error", "Invalid email or password");
+
+    private static final Map<String, String> MALFORMED_REQUEST = Map.of("error", "Malformed request body");
+
+    private static final Map<String, String> INVALID_PARAMETER = Map.of("error", "Invalid request parameter");
+
+    private static final Map<String, String> ACCESS_DENIED = Map.of("error", "Access denied");
+
+    private static final Map<String, String> INTERNAL_ERROR = Map.of("error", "Internal server error");
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<Map<String, String>> handleApiException(ApiException e) {
+        // Explicit type so errors on event-stream endpoints still render as JSON
+        return ResponseEntity.status(e.getStatus()).contentType(MediaType.APPLICATION_JSON).body(e.getBody());
+    }
+
+    // Only the login endpoint authenticates inside a controller
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<Map<String, String>> handleAuthenticationException(AuthenticationException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(INVALID_CREDENTIALS);
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, String>> handleValidationException(MethodArgumentNotValidException e) {
+        Map<String, String> error = new LinkedHashMap<>();
+        FieldError first = e.getBindingResult().getFieldError();
+        error.put("error", first != null ? first.getField() + " " + first.getDefaultMessage() : "Validation failed");
+        for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
+            error.putIfAbsent(fieldError.getField(), fieldError.getDefaultMessage());
+        }
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> handleUnreadableBody(HttpMessageNotReadableException e) {
+        return ResponseEntity.badRequest().body(MALFORMED_REQUEST);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleTypeMismatch(MethodArgumentTypeMismatchException e) {
+        return ResponseEntity.badRequest().body(INVALID_PARAMETER);
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ACCESS_DENIED);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleUnexpected(Exception e) {
+        // Spring MVC's own exceptions (unknown route, wrong method, missing parameter) carry their status
+        if (e instanceof ErrorResponse errorResponse) {
+            return ResponseEntity.status(errorResponse.getStatusCode())
+                    .body(Map.of("error", String.valueOf(errorResponse.getBody().getTitle())));
+        }
+        logger.error("Unhandled exception", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(INTERNAL_ERROR);
+    }
+}
@@ -0,0 +1,33 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * An entity looked up by id does not exist. The message is only built if
+ * something reads it.
+ */
+public class NotFoundException extends ApiException {
+
+    private final String resource;
+
+    private final String id;
+
+    public NotFoundException(String resource, String id) {
+        super(HttpStatus.NOT_FOUND, null);
+        this.resource = resource;
+        this.id = id;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return id != null ? resource + " not found with id: " + id : resource + " not found";
+    }
+}
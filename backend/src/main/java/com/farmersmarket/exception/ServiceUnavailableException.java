@@ -0,0 +1,13 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A capacity limit was reached; the client may retry later.
+ */
+public class ServiceUnavailableException extends ApiException {
+
+    public ServiceUnavailableException(String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
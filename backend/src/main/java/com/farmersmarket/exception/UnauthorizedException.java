@@ -0,0 +1,13 @@
+package com.farmersmarket.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * The caller's credentials or token were not accepted.
+ */
+public class UnauthorizedException extends ApiException {
+
+    public UnauthorizedException(String message) {
+        super(HttpStatus.UNAUTHORIZED, message);
+    }
+}
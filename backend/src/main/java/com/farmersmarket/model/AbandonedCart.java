@@ -0,0 +1,111 @@
+package com.farmersmarket.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@Document(collection = "abandoned_carts")
+public class AbandonedCart {
+    @Id
+    private String id;
+
+    private String customerId;
+    private List<String> productIds;
+    private Integer itemCount;
+    private Money totalValue;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastUpdatedAt;
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public AbandonedCart() {
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    public AbandonedCart(Cart cart) {
+        this();
+        this.id = idFor(cart);
+        this.customerId = cart.getCustomerId();
+        this.createdAt = cart.getCreatedAt();
+        this.lastUpdatedAt = cart.getUpdatedAt();
+
+        List<Cart.CartItem> items = cart.getCartItems() != null ? cart.getCartItems() : List.of();
+        this.productIds = items.stream().map(Cart.CartItem::getProductId).toList();
+        this.itemCount = items.stream().mapToInt(item -> item.getQuantity() != null ? item.getQuantity() : 0).sum();
+        this.totalValue = cart.getTotalAmount();
+    }
+
+    // One summary per cart and last update, so archiving the same cart state twice replaces, not duplicates
+    public static String idFor(Cart cart) {
+        LocalDateTime updatedAt = cart.getUpdatedAt();
+        return cart.getId() + ":" + (updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public List<String> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public Money getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(Money totalValue) {
+        this.totalValue = totalValue;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public void setLastUpdatedAt(LocalDateTime lastUpdatedAt) {
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -1,10 +1,12 @@
 package com.farmersmarket.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "carts")
@@ -17,7 +19,9 @@ public class Cart {
 
     private List<CartItem> cartItems;
     private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
+
+    @Indexed
+    private LocalDateTime updatedAt; // Abandoned cart expiry scans by last update
 
     // Constructors
     public Cart() {
@@ -30,6 +34,22 @@ public class Cart {
         this.customerId = customerId;
     }
 
+    // Snapshot for responses; the caller holds this cart's monitor
+    public Cart copy() {
+        Cart copy = new Cart(customerId);
+        copy.id = id;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        if (cartItems != null) {
+            copy.cartItems = new ArrayList<>(cartItems.size());
+            for (CartItem item : cartItems) {
+                copy.cartItems.add(new CartItem(item.productId, item.productName, item.quantity, item.unitPrice,
+                        item.imageUrl));
+            }
+        }
+        return copy;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -55,6 +75,19 @@ public class Cart {
         this.cartItems = cartItems;
     }
 
+    // Derived for responses, not stored
+    public Money getTotalAmount() {
+        long cents = 0;
+        if (cartItems != null) {
+            for (CartItem item : cartItems) {
+                if (item.getUnitPrice() != null && item.getQuantity() != null) {
+                    cents = Math.addExact(cents, Math.multiplyExact(item.getUnitPrice().getCents(), item.getQuantity()));
+                }
+            }
+        }
+        return Money.ofCents(cents);
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -76,13 +109,13 @@ public class Cart {
         private String productId;
         private String productName;
         private Integer quantity;
-        private Double unitPrice;
+        private Money unitPrice;
         private String imageUrl;
 
         public CartItem() {
         }
 
-        public CartItem(String productId, String productName, Integer quantity, Double unitPrice, String imageUrl) {
+        public CartItem(String productId, String productName, Integer quantity, Money unitPrice, String imageUrl) {
             this.productId = productId;
             this.productName = productName;
             this.quantity = quantity;
@@ -115,11 +148,11 @@ public class Cart {
             this.quantity = quantity;
         }
 
-        public Double getUnitPrice() {
+        public Money getUnitPrice() {
             return unitPrice;
         }
 
-        public void setUnitPrice(Double unitPrice) {
+        public void setUnitPrice(Money unitPrice) {
             this.unitPrice = unitPrice;
         }
 
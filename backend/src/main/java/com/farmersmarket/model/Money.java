@@ -0,0 +1,101 @@
+package com.farmersmarket.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An immutable amount of money held as a {@code long} number of cents. Cart
+ * and order arithmetic is plain long arithmetic (overflow-checked) instead
+ * of BigDecimal or floating point; conversion to and from decimal happens
+ * only at the edges (Mongo, JSON, product prices).
+ *
+ * Stored in Mongo as Decimal128 and written to JSON as a number with two
+ * decimals, so the external representation matches the previous one.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converts a decimal amount, rounding half-up to whole cents.
+     */
+    public static Money of(BigDecimal amount) {
+        return ofCents(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(double amount) {
+        return of(BigDecimal.valueOf(amount));
+    }
+
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount.trim()));
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(long quantity) {
+        return ofCents(Math.multiplyExact(cents, quantity));
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Plain decimal form with exactly two fraction digits, e.g. {@code 4.90}.
+     */
+    @Override
+    public String toString() {
+        // Split before taking the sign off: Math.abs(Long.MIN_VALUE) is still negative
+        long whole = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        StringBuilder text = new StringBuilder(24);
+        if (cents < 0) {
+            text.append('-');
+        }
+        text.append(whole).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+}
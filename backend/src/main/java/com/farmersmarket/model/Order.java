@@ -1,15 +1,26 @@
 package com.farmersmarket.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_updated_idx", def = "{'status': 1, 'updatedAt': 1}"),
+        // Admin order search: equality filter first, then the keyset sort
+        @CompoundIndex(name = "date_id_idx", def = "{'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "customer_date_idx", def = "{'customerId': 1, 'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "status_date_idx", def = "{'status': 1, 'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "payment_status_date_idx", def = "{'paymentStatus': 1, 'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "product_date_idx", def = "{'orderItems.productId': 1, 'orderDate': -1, '_id': -1}")
+})
 public class Order {
     @Id
     private String id;
@@ -21,7 +32,7 @@ public class Order {
     private List<OrderItem> orderItems;
 
     @NotNull
-    private BigDecimal totalAmount;
+    private Money totalAmount;
 
     @NotBlank
     private String status; // PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
@@ -34,6 +45,9 @@ public class Order {
     private LocalDateTime updatedAt;
     private String notes;
 
+    @Version
+    private Long version; // Guards full-document saves against concurrent status changes
+
     // Constructors
     public Order() {
         this.orderDate = LocalDateTime.now();
@@ -42,7 +56,7 @@ public class Order {
         this.paymentStatus = "PENDING";
     }
 
-    public Order(String customerId, List<OrderItem> orderItems, BigDecimal totalAmount) {
+    public Order(String customerId, List<OrderItem> orderItems, Money totalAmount) {
         this();
         this.customerId = customerId;
         this.orderItems = orderItems;
@@ -74,11 +88,11 @@ public class Order {
         this.orderItems = orderItems;
     }
 
-    public BigDecimal getTotalAmount() {
+    public Money getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(Money totalAmount) {
         this.totalAmount = totalAmount;
     }
 
@@ -130,6 +144,14 @@ public class Order {
         this.orderDate = orderDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
@@ -151,18 +173,18 @@ public class Order {
         private String productId;
         private String productName;
         private Integer quantity;
-        private BigDecimal unitPrice;
-        private BigDecimal totalPrice;
+        private Money unitPrice;
+        private Money totalPrice;
 
         public OrderItem() {
         }
 
-        public OrderItem(String productId, String productName, Integer quantity, BigDecimal unitPrice) {
+        public OrderItem(String productId, String productName, Integer quantity, Money unitPrice) {
             this.productId = productId;
             this.productName = productName;
             this.quantity = quantity;
             this.unitPrice = unitPrice;
-            this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            updateTotalPrice();
         }
 
         // Getters and Setters
@@ -188,24 +210,31 @@ public class Order {
 
         public void setQuantity(Integer quantity) {
             this.quantity = quantity;
-            this.totalPrice = this.unitPrice.multiply(BigDecimal.valueOf(quantity));
+            updateTotalPrice();
         }
 
-        public BigDecimal getUnitPrice() {
+        public Money getUnitPrice() {
             return unitPrice;
         }
 
-        public void setUnitPrice(BigDecimal unitPrice) {
+        public void setUnitPrice(Money unitPrice) {
             this.unitPrice = unitPrice;
-            this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(this.quantity));
+            updateTotalPrice();
         }
 
-        public BigDecimal getTotalPrice() {
+        public Money getTotalPrice() {
             return totalPrice;
         }
 
-        public void setTotalPrice(BigDecimal totalPrice) {
+        public void setTotalPrice(Money totalPrice) {
             this.totalPrice = totalPrice;
         }
+
+        // Either field may be set first when deserialising
+        private void updateTotalPrice() {
+            if (unitPrice != null && quantity != null) {
+                totalPrice = unitPrice.times(quantity);
+            }
+        }
     }
 }
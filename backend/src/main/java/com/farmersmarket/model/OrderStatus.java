@@ -0,0 +1,73 @@
+package com.farmersmarket.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Order lifecycle. An order moves PENDING -> CONFIRMED -> SHIPPED ->
+ * DELIVERED and can be CANCELLED at any point before delivery. DELIVERED and
+ * CANCELLED are final.
+ */
+public enum OrderStatus {
+    PENDING,
+    CONFIRMED,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    private Set<OrderStatus> next;
+
+    private List<String> sources;
+
+    static {
+        PENDING.next = EnumSet.of(CONFIRMED, CANCELLED);
+        CONFIRMED.next = EnumSet.of(SHIPPED, CANCELLED);
+        SHIPPED.next = EnumSet.of(DELIVERED, CANCELLED);
+        DELIVERED.next = EnumSet.noneOf(OrderStatus.class);
+        CANCELLED.next = EnumSet.noneOf(OrderStatus.class);
+
+        for (OrderStatus target : values()) {
+            List<String> names = new ArrayList<>();
+            for (OrderStatus source : values()) {
+                if (source.next.contains(target)) {
+                    names.add(source.name());
+                }
+            }
+            target.sources = Collections.unmodifiableList(names);
+        }
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return next.contains(target);
+    }
+
+    /**
+     * Names of the statuses an order may be in to move to this one, for
+     * matching the current status in a conditional update.
+     */
+    public List<String> getSourceNames() {
+        return sources;
+    }
+
+    public boolean isFinal() {
+        return next.isEmpty();
+    }
+
+    /**
+     * Returns the status with this name, or {@code null} if there is none.
+     */
+    public static OrderStatus fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (OrderStatus status : values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
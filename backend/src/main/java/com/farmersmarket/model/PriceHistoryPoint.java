@@ -0,0 +1,80 @@
+package com.farmersmarket.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Time-series collection: MongoDB buckets points per productId (the meta field) internally
+@Document(collection = "price_history")
+@TimeSeries(collection = "price_history", timeField = "timestamp", metaField = "productId",
+        granularity = Granularity.HOURS)
+public class PriceHistoryPoint {
+    @Id
+    private String id;
+
+    private Instant timestamp;
+    private String productId;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal price;
+
+    private Integer quantity;
+
+    // Constructors
+    public PriceHistoryPoint() {
+    }
+
+    public PriceHistoryPoint(Product product) {
+        this.timestamp = Instant.now();
+        this.productId = product.getId();
+        this.price = product.getPrice();
+        this.quantity = product.getQuantity();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
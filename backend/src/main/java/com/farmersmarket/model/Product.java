@@ -1,8 +1,12 @@
 package com.farmersmarket.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -14,6 +18,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "category_available_price_idx", def = "{'category': 1, 'available': 1, 'price': 1}"),
+        @CompoundIndex(name = "organic_available_price_idx", def = "{'organic': 1, 'available': 1, 'price': 1}"),
+        @CompoundIndex(name = "farmer_available_idx", def = "{'farmerId': 1, 'available': 1}"),
+        @CompoundIndex(name = "available_price_idx", def = "{'available': 1, 'price': 1}")
+})
 public class Product {
     @Id
     private String id;
@@ -28,6 +38,7 @@ public class Product {
 
     @NotNull
     @DecimalMin(value = "0.0", inclusive = false)
+    @Field(targetType = FieldType.DECIMAL128) // Stored numerically so price ranges can use an index
     private BigDecimal price;
 
     @NotNull
@@ -46,6 +57,8 @@ public class Product {
     private boolean available = true;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    @JsonIgnore
+    private String lastAdjustment; // Token of the last bulk inventory batch that changed this product
 
     // Constructors
     public Product() {
@@ -168,4 +181,12 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public String getLastAdjustment() {
+        return lastAdjustment;
+    }
+
+    public void setLastAdjustment(String lastAdjustment) {
+        this.lastAdjustment = lastAdjustment;
+    }
 }
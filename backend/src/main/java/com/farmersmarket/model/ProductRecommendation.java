@@ -0,0 +1,84 @@
+package com.farmersmarket.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Top products bought together with one product, most frequent first
+@Document(collection = "product_recommendations")
+public class ProductRecommendation {
+    @Id
+    private String productId;
+
+    private List<Neighbour> neighbours;
+
+    @Indexed
+    private LocalDateTime updatedAt; // Run time of the job that wrote this document
+
+    // Constructors
+    public ProductRecommendation() {
+    }
+
+    public ProductRecommendation(String productId, List<Neighbour> neighbours, LocalDateTime updatedAt) {
+        this.productId = productId;
+        this.neighbours = neighbours;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public List<Neighbour> getNeighbours() {
+        return neighbours;
+    }
+
+    public void setNeighbours(List<Neighbour> neighbours) {
+        this.neighbours = neighbours;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public static class Neighbour {
+        private String productId;
+        private int count; // Orders containing both products
+
+        public Neighbour() {
+        }
+
+        public Neighbour(String productId, int count) {
+            this.productId = productId;
+            this.count = count;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public void setProductId(String productId) {
+            this.productId = productId;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.farmersmarket.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refresh token. Only the SHA-256 hash of the token is stored. Each token
+ * can be exchanged once; all tokens descending from one login share a
+ * family, so replaying a used token revokes the whole family.
+ */
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String tokenHash;
+
+    @Indexed
+    private String userId;
+
+    @Indexed
+    private String family;
+
+    private boolean used;
+
+    private LocalDateTime createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt; // Mongo removes the token once this passes
+
+    // Constructors
+    public RefreshToken() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public RefreshToken(String tokenHash, String userId, String family, LocalDateTime expiresAt) {
+        this();
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.family = family;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+
+    public void setUsed(boolean used) {
+        this.used = used;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,6 +1,9 @@
 package com.farmersmarket.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -42,6 +45,10 @@ public class User {
     private String city;
     private String state;
     private String zipCode;
+
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location; // Geocoded from zipCode for farmers
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private boolean active = true;
@@ -150,6 +157,14 @@ public class User {
         this.zipCode = zipCode;
     }
 
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+
+    public void setLocation(GeoJsonPoint location) {
+        this.location = location;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
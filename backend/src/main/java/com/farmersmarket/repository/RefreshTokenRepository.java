@@ -0,0 +1,12 @@
+package com.farmersmarket.repository;
+
+import com.farmersmarket.model.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+}
@@ -0,0 +1,72 @@
+package com.farmersmarket.security;
+
+import com.farmersmarket.security.jwt.JwtAuthentication;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * The roles a user can hold. Each role owns a single, shared authority list so
+ * authenticating a request never allocates authorities, and role checks
+ * compare enum constants instead of authority strings.
+ */
+public enum Role {
+    FARMER,
+    CUSTOMER,
+    ADMIN;
+
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + name()));
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * Resolves the role stored on a user or in a token, or {@code null} if it
+     * is not a known role.
+     */
+    public static Role fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name) {
+            case "FARMER":
+                return FARMER;
+            case "CUSTOMER":
+                return CUSTOMER;
+            case "ADMIN":
+                return ADMIN;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the role of an authenticated request, or {@code null} if it has
+     * none. Tokens issued by the JWT filter carry their role directly.
+     */
+    public static Role of(Authentication authentication) {
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication instanceof JwtAuthentication) {
+            return ((JwtAuthentication) authentication).getRole();
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                Role role = fromName(name.substring(5));
+                if (role != null) {
+                    return role;
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isAdmin() {
+        return this == ADMIN;
+    }
+}
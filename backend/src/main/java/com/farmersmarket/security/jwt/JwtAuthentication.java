@@ -0,0 +1,68 @@
+package com.farmersmarket.security.jwt;
+
+import com.farmersmarket.security.Role;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Immutable authentication for a request carrying a valid JWT. It hands out
+ * the role's shared authority list instead of copying it, and carries no
+ * request details, so setting it up costs a single small object.
+ */
+public class JwtAuthentication implements Authentication {
+
+    private final String email;
+
+    private final Role role;
+
+    public JwtAuthentication(String email, Role role) {
+        this.email = email;
+        this.role = role;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role.getAuthorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return email;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        throw new IllegalArgumentException("JwtAuthentication is immutable");
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication[" + email + ", " + role + "]";
+    }
+}
@@ -1,20 +1,19 @@
 package com.farmersmarket.security.jwt;
 
+import com.farmersmarket.security.Role;
+import com.farmersmarket.security.SecurityConfig;
 import com.farmersmarket.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -22,31 +21,40 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // Public routes never look at the caller, so don't spend a signature check on them
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        for (String prefix : SecurityConfig.UNAUTHENTICATED_PATH_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain chain) throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwtToken = null;
-
-        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                email = jwtUtil.getEmailFromToken(jwtToken);
-            } catch (Exception e) {
-                logger.error("Unable to get JWT Token or JWT Token has expired");
-            }
-        }
-
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwtToken)) {
-                String role = jwtUtil.getRoleFromToken(jwtToken);
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(email, null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // One parse both verifies the token and yields its claims
+            Claims claims = jwtUtil.parseClaims(requestTokenHeader.substring(7));
+            if (claims == null) {
+                logger.debug("Unable to get JWT Token or JWT Token has expired");
+            } else {
+                Role role = Role.fromName(claims.get("role", String.class));
+                if (claims.getSubject() != null && role != null
+                        && !tokenRevocationList.isRevoked(claims.getSubject(), claims.getIssuedAt())) {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new JwtAuthentication(claims.getSubject(), role));
+                }
             }
         }
         chain.doFilter(request, response);
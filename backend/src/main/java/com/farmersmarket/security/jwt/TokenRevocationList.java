@@ -0,0 +1,121 @@
+package com.farmersmarket.security.jwt;
+
+import com.farmersmarket.util.BloomFilter;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens whose subject was revoked before the token was issued.
+ *
+ * Revoking a subject rejects every access token issued to it up to that
+ * moment; tokens issued afterwards (e.g. after reactivation) are accepted.
+ * Lookups are a Bloom filter probe and, only on a hit, an exact map lookup,
+ * so the filter adds no allocation to the common case. An entry is needed
+ * only until the tokens it covers have expired, so revocations are kept for
+ * one access-token lifetime.
+ *
+ * Revocations are also written to {@code revoked_subjects} (with a TTL
+ * index) and re-read periodically, so every instance converges within one
+ * poll interval and a restart does not forget them.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final String COLLECTION = "revoked_subjects";
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${jwt.expiration}")
+    private long accessTokenMs;
+
+    @Value("${jwt.revocation.expected-entries:10000}")
+    private int expectedEntries;
+
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        sync();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(
+                new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+    }
+
+    public boolean isRevoked(String subject, Date issuedAt) {
+        if (!filter.mightContain(subject)) {
+            return false;
+        }
+        Long revoked = revokedAt.get(subject);
+        return revoked != null && (issuedAt == null || issuedAt.getTime() <= revoked);
+    }
+
+    public void revoke(String subject) {
+        long now = System.currentTimeMillis();
+        apply(subject, now);
+        mongoTemplate.getCollection(COLLECTION).replaceOne(Filters.eq("_id", subject),
+                new Document("_id", subject)
+                        .append("revokedAt", new Date(now))
+                        .append("expiresAt", new Date(now + accessTokenMs)),
+                new ReplaceOptions().upsert(true));
+    }
+
+    // The collection only holds one access-token lifetime of revocations, so
+    // re-reading all of it is cheap and needs no clock agreement between instances
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:5000}")
+    public void sync() {
+        try {
+            for (Document stored : mongoTemplate.getCollection(COLLECTION)
+                    .find(Filters.gt("expiresAt", new Date()))) {
+                apply(stored.getString("_id"), stored.getDate("revokedAt").getTime());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh token revocations", e);
+        }
+        prune();
+    }
+
+    private synchronized void apply(String subject, long at) {
+        revokedAt.merge(subject, at, Math::max);
+        filter.add(subject);
+    }
+
+    // A Bloom filter cannot forget, so drop expired entries and rebuild it
+    private synchronized void prune() {
+        long cutoff = System.currentTimeMillis() - accessTokenMs;
+        if (!revokedAt.values().removeIf(at -> at < cutoff)) {
+            return;
+        }
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedAt.size() * 2), FALSE_POSITIVE_RATE);
+        revokedAt.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    }
+}
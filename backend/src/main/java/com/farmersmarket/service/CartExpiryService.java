@@ -0,0 +1,145 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.model.AbandonedCart;
+import com.farmersmarket.model.Cart;
+import com.farmersmarket.util.DecimalBackfill;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Removes carts that have not been touched within the expiry window,
+ * optionally archiving a compact summary of each one first. Work is done in
+ * fixed-size batches with a pause in between so the purge never saturates
+ * the primary.
+ */
+@Service
+public class CartExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartExpiryService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${cart.expiry.days:30}")
+    private long expiryDays;
+
+    @Value("${cart.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.expiry.batch-pause-ms:200}")
+    private long batchPauseMs;
+
+    @Value("${cart.expiry.archive:true}")
+    private boolean archive;
+
+    // Cart item prices were doubles and summary values strings or doubles before Money was stored as
+    // Decimal128; convert them in place so amounts compare and sum as one type
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDecimalAmounts() {
+        Document cartItems = new Document("cartItems", DecimalBackfill.toDecimalInArray("cartItems", "unitPrice"));
+        long carts = mongoTemplate.updateMulti(new Query(DecimalBackfill.legacy("cartItems.unitPrice")),
+                DecimalBackfill.set(cartItems), Cart.class).getModifiedCount();
+        long summaries = mongoTemplate.updateMulti(new Query(DecimalBackfill.legacy("totalValue")),
+                DecimalBackfill.set(new Document("totalValue", DecimalBackfill.toDecimal("$totalValue"))),
+                AbandonedCart.class).getModifiedCount();
+        if (carts + summaries > 0) {
+            logger.info("Converted amounts to Decimal128 on {} carts and {} abandoned cart summaries", carts,
+                    summaries);
+        }
+    }
+
+    @Scheduled(cron = "${cart.expiry.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        purgeAbandonedCarts();
+    }
+
+    public long purgeAbandonedCarts() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(expiryDays);
+        long purged = 0;
+
+        while (true) {
+            Query query = new Query(Criteria.where("updatedAt").lt(cutoff))
+                    .with(Sort.by(Sort.Direction.ASC, "updatedAt"))
+                    .limit(batchSize);
+            List<Cart> batch = mongoTemplate.find(query, Cart.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            // Summaries are upserted by cart and last update, so a batch retried after a crash is not archived twice
+            if (archive) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AbandonedCart.class);
+                for (Cart cart : batch) {
+                    AbandonedCart summary = new AbandonedCart(cart);
+                    bulk.replaceOne(new Query(Criteria.where("id").is(summary.getId())), summary,
+                            FindAndReplaceOptions.options().upsert());
+                }
+                bulk.execute();
+            }
+
+            List<String> ids = batch.stream().map(Cart::getId).toList();
+            // Re-check the cutoff so a cart updated since it was read is kept
+            long deleted = mongoTemplate.remove(
+                    new Query(Criteria.where("id").in(ids).and("updatedAt").lt(cutoff)), Cart.class)
+                    .getDeletedCount();
+            purged += deleted;
+            if (archive && deleted < batch.size()) {
+                unarchiveKept(batch, ids);
+            }
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+
+        logger.info("Purged {} abandoned carts not updated since {}", purged, cutoff);
+        return purged;
+    }
+
+    // Drops the summaries of carts in the batch that were updated after being read, and so were kept
+    private void unarchiveKept(List<Cart> batch, List<String> ids) {
+        Query stillThere = new Query(Criteria.where("id").in(ids));
+        stillThere.fields().include("id");
+        Set<String> kept = mongoTemplate.find(stillThere, Cart.class).stream()
+                .map(Cart::getId)
+                .collect(Collectors.toSet());
+        List<String> summaryIds = batch.stream()
+                .filter(cart -> kept.contains(cart.getId()))
+                .map(AbandonedCart::idFor)
+                .toList();
+        if (!summaryIds.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("id").in(summaryIds)), AbandonedCart.class);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,15 +1,16 @@
 package com.farmersmarket.service;
 
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.Cart;
+import com.farmersmarket.model.Money;
 import com.farmersmarket.model.Product;
 import com.farmersmarket.repository.CartRepository;
 import com.farmersmarket.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class CartService {
@@ -20,97 +21,115 @@ public class CartService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CartStore cartStore;
+
+    /**
+     * Returns the live cached cart, shared with concurrent requests for the
+     * same customer. Read or change it only while holding its monitor; the
+     * public methods below return copies taken under that monitor, so
+     * responses are serialized without racing other requests.
+     */
     public Cart getOrCreateCart(String customerId) {
-        Optional<Cart> cart = cartRepository.findByCustomerId(customerId);
-        if (cart.isPresent()) {
-            return cart.get();
-        } else {
-            Cart newCart = new Cart(customerId);
-            newCart.setCartItems(new ArrayList<>());
-            return cartRepository.save(newCart);
-        }
+        return cartStore.getOrLoad(customerId);
     }
 
     public Cart addToCart(String customerId, String productId, Integer quantity) {
         Cart cart = getOrCreateCart(customerId);
+        Cart snapshot;
         Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+                .orElseThrow(() -> new NotFoundException("Product", productId));
 
         if (!product.isAvailable() || product.getQuantity() < quantity) {
-            throw new RuntimeException("Product not available or insufficient quantity");
+            throw new ConflictException("Product not available or insufficient quantity");
         }
 
-        List<Cart.CartItem> cartItems = cart.getCartItems();
-        if (cartItems == null) {
-            cartItems = new ArrayList<>();
-        }
+        synchronized (cart) {
+            List<Cart.CartItem> cartItems = cart.getCartItems();
+
+            // Check if product already exists in cart
+            boolean productExists = false;
+            for (Cart.CartItem item : cartItems) {
+                if (item.getProductId().equals(productId)) {
+                    item.setQuantity(item.getQuantity() + quantity);
+                    productExists = true;
+                    break;
+                }
+            }
 
-        // Check if product already exists in cart
-        boolean productExists = false;
-        for (Cart.CartItem item : cartItems) {
-            if (item.getProductId().equals(productId)) {
-                item.setQuantity(item.getQuantity() + quantity);
-                productExists = true;
-                break;
+            if (!productExists) {
+                Cart.CartItem newItem = new Cart.CartItem(
+                        productId,
+                        product.getName(),
+                        quantity,
+                        Money.of(product.getPrice()),
+                        product.getImageUrls() != null && !product.getImageUrls().isEmpty()
+                                ? product.getImageUrls().get(0)
+                                : null);
+                cartItems.add(newItem);
             }
-        }
 
-        if (!productExists) {
-            Cart.CartItem newItem = new Cart.CartItem(
-                    productId,
-                    product.getName(),
-                    quantity,
-                    product.getPrice().doubleValue(),
-                    product.getImageUrls() != null && !product.getImageUrls().isEmpty()
-                            ? product.getImageUrls().get(0)
-                            : null);
-            cartItems.add(newItem);
+            cart.setUpdatedAt(java.time.LocalDateTime.now());
+            snapshot = cart.copy();
         }
 
-        cart.setCartItems(cartItems);
-        cart.setUpdatedAt(java.time.LocalDateTime.now());
-
-        return cartRepository.save(cart);
+        cartStore.markDirty(cart);
+        return snapshot;
     }
 
     public Cart updateCartItem(String customerId, String productId, Integer quantity) {
         Cart cart = getOrCreateCart(customerId);
-        List<Cart.CartItem> cartItems = cart.getCartItems();
-
-        for (Cart.CartItem item : cartItems) {
-            if (item.getProductId().equals(productId)) {
-                if (quantity <= 0) {
-                    cartItems.remove(item);
-                } else {
-                    item.setQuantity(quantity);
+        Cart snapshot;
+
+        synchronized (cart) {
+            List<Cart.CartItem> cartItems = cart.getCartItems();
+
+            for (Cart.CartItem item : cartItems) {
+                if (item.getProductId().equals(productId)) {
+                    if (quantity <= 0) {
+                        cartItems.remove(item);
+                    } else {
+                        item.setQuantity(quantity);
+                    }
+                    break;
                 }
-                break;
             }
-        }
 
-        cart.setCartItems(cartItems);
-        cart.setUpdatedAt(java.time.LocalDateTime.now());
+            cart.setUpdatedAt(java.time.LocalDateTime.now());
+            snapshot = cart.copy();
+        }
 
-        return cartRepository.save(cart);
+        cartStore.markDirty(cart);
+        return snapshot;
     }
 
     public Cart removeFromCart(String customerId, String productId) {
         Cart cart = getOrCreateCart(customerId);
-        List<Cart.CartItem> cartItems = cart.getCartItems();
+        Cart snapshot;
 
-        cartItems.removeIf(item -> item.getProductId().equals(productId));
-
-        cart.setCartItems(cartItems);
-        cart.setUpdatedAt(java.time.LocalDateTime.now());
+        synchronized (cart) {
+            cart.getCartItems().removeIf(item -> item.getProductId().equals(productId));
+            cart.setUpdatedAt(java.time.LocalDateTime.now());
+            snapshot = cart.copy();
+        }
 
-        return cartRepository.save(cart);
+        cartStore.markDirty(cart);
+        return snapshot;
     }
 
     public void clearCart(String customerId) {
+        cartStore.remove(customerId);
         cartRepository.deleteByCustomerId(customerId);
     }
 
     public Cart getCart(String customerId) {
-        return getOrCreateCart(customerId);
+        Cart cart = getOrCreateCart(customerId);
+        synchronized (cart) {
+            return cart.copy();
+        }
+    }
+
+    public void prepareCheckout(String customerId) {
+        cartStore.flushBeforeCheckout(customerId);
     }
 }
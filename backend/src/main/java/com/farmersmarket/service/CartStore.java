@@ -0,0 +1,399 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.model.Cart;
+import com.farmersmarket.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind store for active carts. Carts live in memory, sharded by
+ * customerId, and mutations only mark them dirty; dirty carts are written to
+ * Mongo at most once per flush interval. Each shard is an access-ordered map
+ * so the least recently used carts are evicted when a shard is full or idle.
+ *
+ * Callers mutate a cart while holding its monitor and then call
+ * {@link #markDirty(Cart)}; the flusher takes the same monitor while saving.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+
+    private static final int SHARD_COUNT = 16;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationRegistry invalidationRegistry;
+
+    @Value("${cart.store.max-carts:100000}")
+    private int maxCarts;
+
+    @Value("${cart.store.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+
+    @Value("${cart.store.flush-before-checkout:true}")
+    private boolean flushBeforeCheckout;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+
+    // cartId -> customerId for cached carts, so change-stream deletes (which only carry the id) hit one shard
+    private final Map<String, String> customerByCartId = new ConcurrentHashMap<>();
+
+    // Carts dropped by remove() or an invalidation (not by LRU or idle eviction), so a markDirty
+    // racing the removal does not write them back; weak, as the carts are unreachable soon after
+    private final Set<Cart> removedCarts =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public CartStore() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationRegistry.subscribe("carts", this::onInvalidation);
+    }
+
+    public Cart getOrLoad(String customerId) {
+        Shard shard = shardFor(customerId);
+        synchronized (shard) {
+            Entry entry = shard.carts.get(customerId);
+            if (entry != null) {
+                entry.lastAccess = System.currentTimeMillis();
+                return entry.cart;
+            }
+        }
+
+        // Load outside the shard lock; a concurrent loader for the same customer loses below
+        Entry loaded;
+        Cart stored = cartRepository.findByCustomerId(customerId).orElse(null);
+        if (stored != null) {
+            if (stored.getCartItems() == null) {
+                stored.setCartItems(new ArrayList<>());
+            }
+            loaded = new Entry(stored, false);
+        } else {
+            Cart newCart = new Cart(customerId);
+            newCart.setCartItems(new ArrayList<>());
+            loaded = new Entry(newCart, true);
+        }
+
+        int shardLimit = Math.max(1, maxCarts / SHARD_COUNT);
+        List<Entry> pending;
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (shard) {
+            Entry existing = shard.carts.get(customerId);
+            if (existing != null) {
+                existing.lastAccess = System.currentTimeMillis();
+                return existing.cart;
+            }
+            shard.carts.put(customerId, loaded);
+            pending = shard.trimTo(shardLimit, evicted);
+            evicted.forEach(this::detach);
+        }
+        track(loaded);
+        writeThenEvict(shard, pending, entry -> shard.carts.size() > shardLimit);
+        return loaded.cart;
+    }
+
+    public void markDirty(Cart cart) {
+        Shard shard = shardFor(cart.getCustomerId());
+        synchronized (shard) {
+            Entry entry = shard.carts.get(cart.getCustomerId());
+            if (entry != null && entry.cart == cart) {
+                entry.dirty = true;
+                entry.lastAccess = System.currentTimeMillis();
+                return;
+            }
+        }
+        // The cart was evicted while being mutated. After an LRU or idle eviction nothing else will write
+        // it, so write it directly; a removed or invalidated cart must not be brought back
+        synchronized (cart) {
+            if (removedCarts.contains(cart)) {
+                return;
+            }
+            cartRepository.save(cart);
+        }
+    }
+
+    public void remove(String customerId) {
+        Shard shard = shardFor(customerId);
+        Entry entry;
+        synchronized (shard) {
+            entry = shard.carts.remove(customerId);
+            retire(entry);
+        }
+        markRemoved(entry);
+    }
+
+    public void flushBeforeCheckout(String customerId) {
+        if (flushBeforeCheckout) {
+            flush(customerId);
+        }
+    }
+
+    public void flush(String customerId) {
+        Shard shard = shardFor(customerId);
+        Entry entry;
+        synchronized (shard) {
+            entry = shard.carts.get(customerId);
+            if (entry == null || !entry.dirty) {
+                return;
+            }
+            entry.dirty = false;
+        }
+        write(entry);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:1000}")
+    public void flushDirty() {
+        long idleCutoff = System.currentTimeMillis() - idleEvictMs;
+        for (Shard shard : shards) {
+            List<Entry> pending = new ArrayList<>();
+            List<Entry> idleDirty = new ArrayList<>();
+            synchronized (shard) {
+                Iterator<Entry> iterator = shard.carts.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (entry.dirty) {
+                        entry.dirty = false;
+                        pending.add(entry);
+                        if (entry.lastAccess < idleCutoff) {
+                            idleDirty.add(entry);
+                        }
+                    } else if (entry.lastAccess < idleCutoff) {
+                        iterator.remove();
+                        detach(entry);
+                    }
+                }
+            }
+            for (Entry entry : pending) {
+                write(entry);
+            }
+            // Idle dirty carts stay in the shard until their write lands so a reload cannot see the stale copy
+            evictIfStill(shard, idleDirty, entry -> entry.lastAccess < idleCutoff);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing dirty carts before shutdown");
+        idleEvictMs = Long.MAX_VALUE;
+        flushDirty();
+    }
+
+    /**
+     * Drops carts changed by another instance. Updates only evict clean
+     * entries whose stored timestamp differs from ours, so this instance's
+     * own flushes do not evict the carts it just wrote; deletes always evict.
+     */
+    private void onInvalidation(InvalidationEvent event) {
+        if (event.isReset()) {
+            evictWhere(entry -> !entry.dirty);
+        } else if (event.isDelete() || event.getFullDocument() == null) {
+            String customerId = customerByCartId.get(event.getDocumentId());
+            if (customerId == null) {
+                return;
+            }
+            Shard shard = shardFor(customerId);
+            Entry evicted = null;
+            synchronized (shard) {
+                Entry entry = shard.carts.get(customerId);
+                if (entry != null && event.getDocumentId().equals(entry.cart.getId())) {
+                    evicted = shard.carts.remove(customerId);
+                    retire(evicted);
+                }
+            }
+            markRemoved(evicted);
+        } else {
+            Cart changed = mongoTemplate.getConverter().read(Cart.class, event.getFullDocument());
+            Shard shard = shardFor(changed.getCustomerId());
+            Entry evicted = null;
+            synchronized (shard) {
+                Entry entry = shard.carts.get(changed.getCustomerId());
+                if (entry != null && !entry.dirty
+                        && !Objects.equals(millis(entry.cart.getUpdatedAt()), millis(changed.getUpdatedAt()))) {
+                    evicted = shard.carts.remove(changed.getCustomerId());
+                    retire(evicted);
+                }
+            }
+            markRemoved(evicted);
+        }
+    }
+
+    private void evictWhere(Predicate<Entry> predicate) {
+        for (Shard shard : shards) {
+            List<Entry> evicted = new ArrayList<>();
+            synchronized (shard) {
+                Iterator<Entry> iterator = shard.carts.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (predicate.test(entry)) {
+                        evicted.add(entry);
+                        iterator.remove();
+                        retire(entry);
+                    }
+                }
+            }
+            evicted.forEach(this::markRemoved);
+        }
+    }
+
+    private void markRemoved(Entry entry) {
+        if (entry != null) {
+            synchronized (entry.cart) {
+                entry.removed = true;
+            }
+        }
+    }
+
+    private void track(Entry entry) {
+        String cartId = entry.cart.getId();
+        if (cartId != null) {
+            customerByCartId.put(cartId, entry.cart.getCustomerId());
+            // An eviction that raced with this put may have missed the mapping
+            if (entry.detached) {
+                customerByCartId.remove(cartId, entry.cart.getCustomerId());
+            }
+        }
+    }
+
+    // Like detach, for carts that were removed or changed elsewhere rather than evicted
+    private void retire(Entry entry) {
+        if (entry != null) {
+            removedCarts.add(entry.cart);
+            detach(entry);
+        }
+    }
+
+    // Caller holds the shard monitor and has just removed the entry from it
+    private void detach(Entry entry) {
+        if (entry != null) {
+            entry.detached = true;
+            String cartId = entry.cart.getId();
+            if (cartId != null) {
+                customerByCartId.remove(cartId, entry.cart.getCustomerId());
+            }
+        }
+    }
+
+    private static LocalDateTime millis(LocalDateTime time) {
+        return time != null ? time.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+
+    /**
+     * Writes entries picked for eviction, then removes those that are still
+     * clean and still match the condition. Until then they stay in the shard,
+     * so a concurrent getOrLoad keeps using them instead of reloading the
+     * stale Mongo copy.
+     */
+    private void writeThenEvict(Shard shard, List<Entry> pending, Predicate<Entry> stillEvictable) {
+        for (Entry entry : pending) {
+            write(entry);
+        }
+        evictIfStill(shard, pending, stillEvictable);
+    }
+
+    private void evictIfStill(Shard shard, List<Entry> candidates, Predicate<Entry> stillEvictable) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        synchronized (shard) {
+            for (Entry entry : candidates) {
+                // A failed write or a new mutation marks the entry dirty again; keep it for the next flush
+                if (!entry.dirty && stillEvictable.test(entry)
+                        && shard.carts.remove(entry.cart.getCustomerId(), entry)) {
+                    detach(entry);
+                }
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        synchronized (entry.cart) {
+            if (entry.removed) {
+                return;
+            }
+            try {
+                boolean firstSave = entry.cart.getId() == null;
+                cartRepository.save(entry.cart);
+                if (firstSave) {
+                    track(entry);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush cart for customer {}", entry.cart.getCustomerId(), e);
+                entry.dirty = true;
+            }
+        }
+    }
+
+    private Shard shardFor(String customerId) {
+        return shards[(customerId.hashCode() & 0x7fffffff) % SHARD_COUNT];
+    }
+
+    private static final class Entry {
+        private final Cart cart;
+        private volatile boolean dirty;
+        private volatile boolean removed;
+        private volatile boolean detached;
+        private volatile long lastAccess;
+
+        private Entry(Cart cart, boolean dirty) {
+            this.cart = cart;
+            this.dirty = dirty;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private static final class Shard {
+        private final LinkedHashMap<String, Entry> carts = new LinkedHashMap<>(64, 0.75f, true);
+
+        // Caller holds the shard monitor. Removes clean least recently used
+        // entries into evicted; dirty ones are left in place, marked pending
+        // and returned so the caller can write them before evicting.
+        private List<Entry> trimTo(int maxSize, List<Entry> evicted) {
+            List<Entry> pending = new ArrayList<>();
+            int excess = carts.size() - maxSize;
+            Iterator<Map.Entry<String, Entry>> iterator = carts.entrySet().iterator();
+            while (excess > 0 && iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (entry.dirty) {
+                    entry.dirty = false;
+                    pending.add(entry);
+                } else {
+                    iterator.remove();
+                    evicted.add(entry);
+                }
+                excess--;
+            }
+            return pending;
+        }
+    }
+}
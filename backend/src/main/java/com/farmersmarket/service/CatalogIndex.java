@@ -0,0 +1,436 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.model.Product;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalog filter engine. Every product gets a dense ordinal and
+ * each low-cardinality attribute value (category, unit, farmer, organic,
+ * available) keeps a roaring bitmap of the ordinals that carry it, so any
+ * AND/OR/NOT combination of attribute filters is answered with bitmap
+ * operations instead of a Mongo query.
+ *
+ * The index is rebuilt from Mongo at startup and kept current by
+ * {@link ProductService} writes, including stock taken by orders. Ordinals
+ * of deleted products are not reused; they are simply cleared from the live
+ * set.
+ */
+@Component
+public class CatalogIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String UNIT = "unit";
+    public static final String FARMER_ID = "farmerId";
+    public static final String ORGANIC = "organic";
+    public static final String AVAILABLE = "available";
+
+    private static final List<String> VALUE_ATTRIBUTES = List.of(CATEGORY, UNIT, FARMER_ID);
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndex.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationRegistry invalidationRegistry;
+
+    @Value("${catalog.index.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final List<Product> products = new ArrayList<>();
+
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    private final RoaringBitmap organic = new RoaringBitmap();
+
+    private final RoaringBitmap available = new RoaringBitmap();
+
+    private final Map<String, Map<String, RoaringBitmap>> values = new HashMap<>();
+
+    private volatile boolean ready;
+
+    private final Bitmaps bitmaps = new Bitmaps() {
+        @Override
+        public RoaringBitmap all() {
+            return live;
+        }
+
+        @Override
+        public RoaringBitmap valueOf(String attribute, String value) {
+            return bitmapFor(attribute, value);
+        }
+    };
+
+    public CatalogIndex() {
+        for (String attribute : VALUE_ATTRIBUTES) {
+            values.put(attribute, new HashMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationRegistry.subscribe("products", this::onInvalidation);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            ordinals.clear();
+            products.clear();
+            live.clear();
+            organic.clear();
+            available.clear();
+            values.values().forEach(Map::clear);
+
+            try (Stream<Product> all = mongoTemplate.stream(new Query(), Product.class)) {
+                all.forEach(this::indexLocked);
+            }
+
+            live.runOptimize();
+            organic.runOptimize();
+            available.runOptimize();
+            values.values().forEach(byValue -> byValue.values().forEach(RoaringBitmap::runOptimize));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Catalog index built with {} products in {} ms", products.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    // Applies product writes made by this or any other instance
+    private void onInvalidation(InvalidationEvent event) {
+        if (!ready) {
+            return;
+        }
+        if (event.isReset()) {
+            rebuild();
+        } else if (event.isDelete() || event.getFullDocument() == null) {
+            remove(event.getDocumentId());
+        } else {
+            index(mongoTemplate.getConverter().read(Product.class, event.getFullDocument()));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                unindexLocked(ordinal, products.get(ordinal));
+                products.set(ordinal, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Product> find(Filter filter) {
+        lock.readLock().lock();
+        try {
+            return materialize(evaluate(filter));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the filter once and returns one page of the matches in the
+     * given order, the total match count and, for each facet attribute, how
+     * many matches carry each value. {@code refine} (may be null) narrows the
+     * matches on attributes that are not bitmap-indexed, before counting.
+     * Only the page and the entries ahead of it are materialized.
+     */
+    public Result browse(Filter filter, Predicate<Product> refine, Comparator<Product> order,
+                         int offset, int limit, int maxValuesPerFacet) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = evaluate(filter);
+            if (refine != null) {
+                RoaringBitmap refined = new RoaringBitmap();
+                matches.forEach((int ordinal) -> {
+                    if (refine.test(products.get(ordinal))) {
+                        refined.add(ordinal);
+                    }
+                });
+                matches = refined;
+            }
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (String attribute : VALUE_ATTRIBUTES) {
+                facets.put(attribute, countValues(matches, values.get(attribute), maxValuesPerFacet));
+            }
+            Map<String, Long> organicCounts = new LinkedHashMap<>();
+            long organicCount = RoaringBitmap.andCardinality(matches, organic);
+            organicCounts.put("true", organicCount);
+            organicCounts.put("false", matches.getLongCardinality() - organicCount);
+            facets.put(ORGANIC, organicCounts);
+            return new Result(page(matches, order, offset, limit), matches.getLongCardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        lock.readLock().lock();
+        try {
+            long bitmapBytes = live.getLongSizeInBytes() + organic.getLongSizeInBytes()
+                    + available.getLongSizeInBytes();
+            long bitmapCount = 3;
+            for (Map<String, RoaringBitmap> byValue : values.values()) {
+                for (RoaringBitmap bitmap : byValue.values()) {
+                    bitmapBytes += bitmap.getLongSizeInBytes();
+                    bitmapCount++;
+                }
+            }
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("products", live.getLongCardinality());
+            stats.put("ordinals", (long) products.size());
+            stats.put("bitmaps", bitmapCount);
+            stats.put("bitmapBytes", bitmapBytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read or write lock
+    private RoaringBitmap evaluate(Filter filter) {
+        return RoaringBitmap.and(live, filter.evaluate(bitmaps));
+    }
+
+    private RoaringBitmap bitmapFor(String attribute, String value) {
+        if (ORGANIC.equals(attribute)) {
+            return Boolean.parseBoolean(value) ? organic : RoaringBitmap.andNot(live, organic);
+        }
+        if (AVAILABLE.equals(attribute)) {
+            return Boolean.parseBoolean(value) ? available : RoaringBitmap.andNot(live, available);
+        }
+        Map<String, RoaringBitmap> byValue = values.get(attribute);
+        if (byValue == null) {
+            throw new BadRequestException("Unknown catalog attribute: " + attribute);
+        }
+        RoaringBitmap bitmap = byValue.get(value);
+        return bitmap != null ? bitmap : new RoaringBitmap();
+    }
+
+    private List<Product> materialize(RoaringBitmap matches) {
+        List<Product> result = new ArrayList<>(matches.getCardinality());
+        matches.forEach((int ordinal) -> result.add(products.get(ordinal)));
+        return result;
+    }
+
+    // Caller holds the read or write lock. Keeps the first offset + limit
+    // matches in a bounded heap, so a page costs O(n log k), not a full sort
+    private List<Product> page(RoaringBitmap matches, Comparator<Product> order, int offset, int limit) {
+        int end = (int) Math.min((long) offset + limit, matches.getLongCardinality());
+        if (offset >= end) {
+            return new ArrayList<>();
+        }
+        // Reversed order puts the worst of the best `end` seen so far at the head
+        PriorityQueue<Product> best = new PriorityQueue<>(end, order.reversed());
+        matches.forEach((int ordinal) -> {
+            Product product = products.get(ordinal);
+            if (best.size() < end) {
+                best.add(product);
+            } else if (order.compare(product, best.peek()) < 0) {
+                best.poll();
+                best.add(product);
+            }
+        });
+        List<Product> top = new ArrayList<>(best);
+        top.sort(order);
+        return new ArrayList<>(top.subList(offset, end));
+    }
+
+    private Map<String, Long> countValues(RoaringBitmap matches, Map<String, RoaringBitmap> byValue, int limit) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : byValue.entrySet()) {
+            long count = RoaringBitmap.andCardinality(matches, entry.getValue());
+            if (count > 0) {
+                counts.add(Map.entry(entry.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < counts.size() && i < limit; i++) {
+            result.put(counts.get(i).getKey(), counts.get(i).getValue());
+        }
+        return result;
+    }
+
+    private void indexLocked(Product product) {
+        Integer ordinal = ordinals.get(product.getId());
+        if (ordinal == null) {
+            ordinal = products.size();
+            ordinals.put(product.getId(), ordinal);
+            products.add(product);
+        } else {
+            unindexLocked(ordinal, products.get(ordinal));
+            products.set(ordinal, product);
+        }
+
+        live.add(ordinal);
+        if (product.isOrganic()) {
+            organic.add(ordinal);
+        }
+        if (product.isAvailable()) {
+            available.add(ordinal);
+        }
+        addValue(CATEGORY, product.getCategory(), ordinal);
+        addValue(UNIT, product.getUnit(), ordinal);
+        addValue(FARMER_ID, product.getFarmerId(), ordinal);
+    }
+
+    private void unindexLocked(int ordinal, Product previous) {
+        live.remove(ordinal);
+        organic.remove(ordinal);
+        available.remove(ordinal);
+        if (previous != null) {
+            removeValue(CATEGORY, previous.getCategory(), ordinal);
+            removeValue(UNIT, previous.getUnit(), ordinal);
+            removeValue(FARMER_ID, previous.getFarmerId(), ordinal);
+        }
+    }
+
+    private void addValue(String attribute, String value, int ordinal) {
+        if (value != null) {
+            values.get(attribute).computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private void removeValue(String attribute, String value, int ordinal) {
+        if (value == null) {
+            return;
+        }
+        Map<String, RoaringBitmap> byValue = values.get(attribute);
+        RoaringBitmap bitmap = byValue.get(value);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Filter expression over catalog attributes. Leaves may return the
+     * index's own bitmaps, so combinators must never mutate their inputs.
+     */
+    public interface Filter {
+
+        RoaringBitmap evaluate(Bitmaps bitmaps);
+
+        static Filter all() {
+            return Bitmaps::all;
+        }
+
+        static Filter eq(String attribute, Object value) {
+            String text = String.valueOf(value);
+            return bitmaps -> bitmaps.valueOf(attribute, text);
+        }
+
+        static Filter in(String attribute, List<String> values) {
+            return or(values.stream().map(value -> eq(attribute, value)).toArray(Filter[]::new));
+        }
+
+        static Filter and(Filter... filters) {
+            return bitmaps -> {
+                RoaringBitmap result = bitmaps.all();
+                for (Filter filter : filters) {
+                    result = RoaringBitmap.and(result, filter.evaluate(bitmaps));
+                }
+                return result;
+            };
+        }
+
+        static Filter or(Filter... filters) {
+            return bitmaps -> RoaringBitmap.or(Arrays.stream(filters)
+                    .map(filter -> filter.evaluate(bitmaps))
+                    .toArray(RoaringBitmap[]::new));
+        }
+
+        static Filter not(Filter filter) {
+            return bitmaps -> RoaringBitmap.andNot(bitmaps.all(), filter.evaluate(bitmaps));
+        }
+    }
+
+    public interface Bitmaps {
+
+        RoaringBitmap all();
+
+        RoaringBitmap valueOf(String attribute, String value);
+    }
+
+    public static class Result {
+        private final List<Product> products;
+        private final long total;
+        private final Map<String, Map<String, Long>> facets;
+
+        public Result(List<Product> products, long total, Map<String, Map<String, Long>> facets) {
+            this.products = products;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, Map<String, Long>> getFacets() {
+            return facets;
+        }
+    }
+}
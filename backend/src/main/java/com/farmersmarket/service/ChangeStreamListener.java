@@ -0,0 +1,215 @@
+package com.farmersmarket.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the products, users, carts and orders collections through MongoDB
+ * change streams and republishes every change to the
+ * {@link InvalidationRegistry}, so in-process caches and live update streams
+ * on every instance see writes made by the others.
+ *
+ * Each collection has its own watcher thread. The last processed resume token
+ * is stored in {@code change_stream_tokens} so a restart continues where it
+ * left off; if the oplog no longer covers the token a reset event is
+ * published instead. Change streams need a replica set, so this is off by
+ * default and enabled in the replicaset profile.
+ */
+@Component
+public class ChangeStreamListener {
+
+    private static final String TOKEN_COLLECTION = "change_stream_tokens";
+
+    private static final List<String> WATCHED_COLLECTIONS = List.of("products", "users", "carts", "orders");
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamListener.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationRegistry invalidationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.invalidation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.invalidation.token-save-interval-ms:1000}")
+    private long tokenSaveIntervalMs;
+
+    @Value("${cache.invalidation.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private final List<Thread> watchers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (String collection : WATCHED_COLLECTIONS) {
+            Thread watcher = new Thread(() -> watchLoop(collection), "change-stream-" + collection);
+            watcher.setDaemon(true);
+            watcher.start();
+            watchers.add(watcher);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        watchers.forEach(Thread::interrupt);
+    }
+
+    private void watchLoop(String collection) {
+        Timer lag = Timer.builder("cache.invalidation.lag")
+                .description("Delay between a write being committed and this instance publishing its invalidation")
+                .tag("collection", collection)
+                .register(meterRegistry);
+
+        while (running) {
+            try {
+                watch(collection, lag);
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    logger.warn("Resume token for {} is no longer in the oplog; invalidating everything", collection);
+                    deleteToken(collection);
+                    invalidationRegistry.publish(InvalidationEvent.reset(collection));
+                } else {
+                    logger.error("Change stream on {} failed", collection, e);
+                    sleep(retryDelayMs);
+                }
+            } catch (MongoException e) {
+                logger.error("Change stream on {} failed", collection, e);
+                sleep(retryDelayMs);
+            }
+        }
+    }
+
+    private void watch(String collection, Timer lag) {
+        MongoCollection<Document> source = mongoTemplate.getCollection(collection);
+        ChangeStreamIterable<Document> stream = source.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        BsonDocument resumeToken = loadToken(collection);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        long lastSaved = System.currentTimeMillis();
+        BsonDocument unsaved = null;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    invalidationRegistry.publish(toEvent(collection, change));
+                    recordLag(lag, change);
+                }
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null) {
+                    unsaved = token;
+                }
+                if (unsaved != null && System.currentTimeMillis() - lastSaved >= tokenSaveIntervalMs) {
+                    saveToken(collection, unsaved);
+                    unsaved = null;
+                    lastSaved = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            if (unsaved != null) {
+                saveToken(collection, unsaved);
+            }
+        }
+    }
+
+    private InvalidationEvent toEvent(String collection, ChangeStreamDocument<Document> change) {
+        String documentId = null;
+        if (change.getDocumentKey() != null) {
+            BsonValue id = change.getDocumentKey().get("_id");
+            documentId = id.isObjectId() ? id.asObjectId().getValue().toHexString()
+                    : id.isString() ? id.asString().getValue() : id.toString();
+        }
+        if (documentId == null) {
+            // drop, rename or invalidate of the whole collection
+            return InvalidationEvent.reset(collection);
+        }
+        return new InvalidationEvent(collection, documentId, change.getOperationTypeString(),
+                change.getFullDocument());
+    }
+
+    private void recordLag(Timer lag, ChangeStreamDocument<Document> change) {
+        long committedAt;
+        if (change.getWallTime() != null) {
+            committedAt = change.getWallTime().getValue();
+        } else if (change.getClusterTime() != null) {
+            committedAt = change.getClusterTime().getTime() * 1000L;
+        } else {
+            return;
+        }
+        lag.record(Math.max(0, System.currentTimeMillis() - committedAt), TimeUnit.MILLISECONDS);
+    }
+
+    private BsonDocument loadToken(String collection) {
+        Document stored = mongoTemplate.getCollection(TOKEN_COLLECTION).find(Filters.eq("_id", collection)).first();
+        if (stored == null || stored.getString("token") == null) {
+            return null;
+        }
+        return new BsonDocument("_data", new BsonString(stored.getString("token")));
+    }
+
+    private void saveToken(String collection, BsonDocument token) {
+        try {
+            mongoTemplate.getCollection(TOKEN_COLLECTION).replaceOne(Filters.eq("_id", collection),
+                    new Document("_id", collection).append("token", token.getString("_data").getValue()),
+                    new ReplaceOptions().upsert(true));
+        } catch (MongoException e) {
+            logger.warn("Could not save change stream resume token for {}", collection, e);
+        }
+    }
+
+    private void deleteToken(String collection) {
+        mongoTemplate.getCollection(TOKEN_COLLECTION).deleteOne(Filters.eq("_id", collection));
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image store on the local file system. An upload is
+ * named by the SHA-256 of its bytes, so identical uploads share one file and
+ * a file never changes once written, which lets it be cached forever.
+ *
+ * Thumbnail and medium variants are rendered ahead of time by a small,
+ * bounded pool. A variant requested before it is ready is queued on the same
+ * pool and awaited; concurrent requests for the same variant share one
+ * rendering. Rendering never runs on request threads, so a saturated pool
+ * answers 503 rather than taking on unbounded work.
+ */
+@Service
+public class ImageStorageService {
+
+    // Originals keep their format; variants are only ever JPEG or PNG (see variantName)
+    private static final Pattern FILE_NAME =
+            Pattern.compile("([0-9a-f]{64})(?:-(thumb|medium)\\.(jpg|png)|\\.(jpg|png|gif))");
+
+    private static final Map<String, String> EXTENSIONS = Map.of("jpeg", "jpg", "png", "png", "gif", "gif");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of("jpg", "image/jpeg", "png", "image/png",
+            "gif", "image/gif");
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    @Value("${images.storage-dir:./data/images}")
+    private String storageDir;
+
+    @Value("${images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${images.thumbnail-size:200}")
+    private int thumbnailSize;
+
+    @Value("${images.medium-size:800}")
+    private int mediumSize;
+
+    @Value("${images.variant-threads:2}")
+    private int variantThreads;
+
+    @Value("${images.variant-queue-size:100}")
+    private int variantQueueSize;
+
+    @Value("${images.variant-wait-ms:10000}")
+    private long variantWaitMs;
+
+    private Path root;
+
+    private ThreadPoolExecutor renderer;
+
+    private final Map<String, CompletableFuture<Path>> rendering = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        renderer = new ThreadPoolExecutor(variantThreads, variantThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(variantQueueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-renderer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    /**
+     * Stores an uploaded image and queues its variants. Returns the file
+     * names of the original, medium and thumbnail images, in that order.
+     */
+    public String[] store(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Image file is empty");
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = probe(temp);
+
+            String original = hash + "." + extension;
+            Path target = pathOf(original);
+            if (Files.exists(target)) {
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            temp = null;
+
+            String medium = variantName(hash, "medium", extension);
+            String thumbnail = variantName(hash, "thumb", extension);
+            prerender(medium);
+            prerender(thumbnail);
+            return new String[] {original, medium, thumbnail};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temporary upload {}", temp, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a served file name to its path, rendering a missing variant
+     * if needed. Returns {@code null} for names this store never issues or
+     * whose original does not exist, and throws
+     * {@link ServiceUnavailableException} if the renderer is saturated.
+     */
+    public Path resolve(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        Path path = pathOf(fileName);
+        if (matcher.group(2) == null || Files.exists(path)) {
+            return Files.exists(path) ? path : null;
+        }
+        CompletableFuture<Path> future = submit(fileName);
+        if (future == null) {
+            throw new ServiceUnavailableException("Image variant renderer is busy");
+        }
+        try {
+            return future.get(variantWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    public String contentType(String fileName) {
+        return CONTENT_TYPES.get(fileName.substring(fileName.lastIndexOf('.') + 1));
+    }
+
+    // Reads only the image header: format and dimensions, not pixels
+    private String probe(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new BadRequestException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                String extension = EXTENSIONS.get(reader.getFormatName().toLowerCase());
+                if (extension == null) {
+                    throw new BadRequestException("Unsupported image format");
+                }
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new BadRequestException("Image dimensions are too large");
+                }
+                return extension;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void prerender(String fileName) {
+        if (submit(fileName) == null) {
+            logger.debug("Variant renderer is busy; {} will be queued on first request", fileName);
+        }
+    }
+
+    private CompletableFuture<Path> submit(String fileName) {
+        CompletableFuture<Path> future;
+        try {
+            future = rendering.computeIfAbsent(fileName,
+                    name -> CompletableFuture.supplyAsync(() -> render(name), renderer));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        // Registered outside computeIfAbsent, which must not modify the map itself
+        future.whenComplete((path, error) -> rendering.remove(fileName, future));
+        return future;
+    }
+
+    private Path render(String fileName) {
+        Path target = pathOf(fileName);
+        if (Files.exists(target)) {
+            return target;
+        }
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        matcher.matches();
+        String hash = matcher.group(1);
+        String format = matcher.group(3);
+        Path original = findOriginal(hash);
+        if (original == null) {
+            return null;
+        }
+        int size = "thumb".equals(matcher.group(2)) ? thumbnailSize : mediumSize;
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                return null;
+            }
+            BufferedImage scaled = scale(source, size, "png".equals(format));
+            Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+            try {
+                ImageIO.write(scaled, "png".equals(format) ? "png" : "jpeg", temp.toFile());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return target;
+        } catch (IOException e) {
+            logger.warn("Could not render image variant {}", fileName, e);
+            return null;
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxSide, boolean keepAlpha) {
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage result = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!keepAlpha) {
+                // JPEG has no alpha channel; flatten transparent GIF pixels onto white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    private Path findOriginal(String hash) {
+        for (String extension : CONTENT_TYPES.keySet()) {
+            Path path = pathOf(hash + "." + extension);
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    // Variants of PNG originals stay PNG to keep transparency; the rest are JPEG
+    private String variantName(String hash, String variant, String originalExtension) {
+        return hash + "-" + variant + "." + ("png".equals(originalExtension) ? "png" : "jpg");
+    }
+
+    // Files are spread over 256 subdirectories by the first byte of the hash
+    private Path pathOf(String fileName) {
+        return root.resolve(fileName.substring(0, 2)).resolve(fileName);
+    }
+}
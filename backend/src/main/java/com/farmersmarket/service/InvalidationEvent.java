@@ -0,0 +1,50 @@
+package com.farmersmarket.service;
+
+import org.bson.Document;
+
+/**
+ * A change to a cached collection observed on the MongoDB change stream.
+ * A null {@code documentId} means the stream could not be resumed and every
+ * cached entry for the collection must be treated as stale.
+ */
+public class InvalidationEvent {
+    private final String collection;
+    private final String documentId;
+    private final String operationType; // insert, update, replace, delete, reset
+    private final Document fullDocument; // Post-image for inserts and updates, null for deletes
+
+    public InvalidationEvent(String collection, String documentId, String operationType, Document fullDocument) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.operationType = operationType;
+        this.fullDocument = fullDocument;
+    }
+
+    public static InvalidationEvent reset(String collection) {
+        return new InvalidationEvent(collection, null, "reset", null);
+    }
+
+    public boolean isReset() {
+        return documentId == null;
+    }
+
+    public boolean isDelete() {
+        return "delete".equals(operationType);
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getOperationType() {
+        return operationType;
+    }
+
+    public Document getFullDocument() {
+        return fullDocument;
+    }
+}
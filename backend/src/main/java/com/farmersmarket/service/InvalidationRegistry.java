@@ -0,0 +1,39 @@
+package com.farmersmarket.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Local fan-out point for cache invalidation events. In-process caches
+ * subscribe per collection; {@link ChangeStreamListener} publishes the
+ * changes made by any backend instance.
+ */
+@Component
+public class InvalidationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationRegistry.class);
+
+    private final Map<String, List<Consumer<InvalidationEvent>>> subscribers = new ConcurrentHashMap<>();
+
+    public void subscribe(String collection, Consumer<InvalidationEvent> subscriber) {
+        subscribers.computeIfAbsent(collection, c -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    public void publish(InvalidationEvent event) {
+        for (Consumer<InvalidationEvent> subscriber : subscribers.getOrDefault(event.getCollection(), List.of())) {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException e) {
+                logger.error("Invalidation subscriber failed for {} {}", event.getCollection(),
+                        event.getDocumentId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.ServiceUnavailableException;
+import com.farmersmarket.model.Order;
+import com.farmersmarket.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes product stock and order status changes to Server-Sent Events
+ * subscribers.
+ *
+ * Each change is serialised to JSON once and offered to every interested
+ * subscriber's bounded queue without blocking the publisher. A small shared
+ * sender pool drains a subscriber's queue only while it has events, so idle
+ * connections cost no thread. A subscriber whose queue overflows is a slow
+ * consumer and is disconnected rather than buffered without limit.
+ *
+ * With change-stream invalidation enabled, events come from the
+ * {@link InvalidationRegistry} so writes on any instance reach every
+ * subscriber; otherwise the local write paths publish directly.
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationRegistry invalidationRegistry;
+
+    @Value("${cache.invalidation.enabled:false}")
+    private boolean fromChangeStreams;
+
+    @Value("${live.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${live.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${live.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${live.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Map<String, Set<Subscriber>> productSubscribers = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Subscriber>> customerSubscribers = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> allSubscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-update-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fromChangeStreams) {
+            invalidationRegistry.subscribe("products", event -> {
+                if (!event.isReset() && event.getFullDocument() != null) {
+                    publishStock(mongoTemplate.getConverter().read(Product.class, event.getFullDocument()));
+                }
+            });
+            invalidationRegistry.subscribe("orders", event -> {
+                if (!event.isReset() && event.getFullDocument() != null) {
+                    publishOrder(mongoTemplate.getConverter().read(Order.class, event.getFullDocument()));
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        allSubscribers.forEach(Subscriber::close);
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribeToProducts(List<String> productIds) {
+        return register(productSubscribers, productIds);
+    }
+
+    public SseEmitter subscribeToOrders(String customerId) {
+        return register(customerSubscribers, List.of(customerId));
+    }
+
+    public void productChanged(Product product) {
+        if (!fromChangeStreams) {
+            publishStock(product);
+        }
+    }
+
+    public void orderChanged(Order order) {
+        if (!fromChangeStreams) {
+            publishOrder(order);
+        }
+    }
+
+    // Keeps idle connections from being closed by proxies
+    @Scheduled(fixedDelayString = "${live.heartbeat-ms:25000}")
+    public void heartbeat() {
+        LiveEvent ping = new LiveEvent("ping", "{}");
+        allSubscribers.forEach(subscriber -> subscriber.offer(ping));
+    }
+
+    private void publishStock(Product product) {
+        Set<Subscriber> subscribers = productSubscribers.get(product.getId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", product.getId());
+        payload.put("quantity", product.getQuantity());
+        payload.put("available", product.isAvailable());
+        LiveEvent event = new LiveEvent("stock", toJson(payload));
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private void publishOrder(Order order) {
+        Set<Subscriber> subscribers = customerSubscribers.get(order.getCustomerId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("status", order.getStatus());
+        payload.put("paymentStatus", order.getPaymentStatus());
+        LiveEvent event = new LiveEvent("order", toJson(payload));
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private SseEmitter register(Map<String, Set<Subscriber>> index, List<String> keys) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ServiceUnavailableException("Too many live update connections");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), index, keys);
+        for (String key : keys) {
+            index.compute(key, (k, subscribers) -> {
+                Set<Subscriber> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+        }
+        allSubscribers.add(subscriber);
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        return subscriber.emitter;
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class LiveEvent {
+        private final String name;
+        private final String json;
+
+        private LiveEvent(String name, String json) {
+            this.name = name;
+            this.json = json;
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<String, Set<Subscriber>> index;
+        private final List<String> keys;
+        private final BlockingQueue<LiveEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Map<String, Set<Subscriber>> index, List<String> keys) {
+            this.emitter = emitter;
+            this.index = index;
+            this.keys = keys;
+        }
+
+        private void offer(LiveEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.debug("Disconnecting slow live update consumer");
+                emitter.complete();
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                LiveEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event().name(event.name).data(event.json, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+                // An event may have arrived after the last poll but before the flag was cleared
+                if (!closed.get() && !queue.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                for (String key : keys) {
+                    index.computeIfPresent(key, (k, subscribers) -> {
+                        subscribers.remove(this);
+                        return subscribers.isEmpty() ? null : subscribers;
+                    });
+                }
+                allSubscribers.remove(this);
+                queue.clear();
+                connections.decrementAndGet();
+            }
+        }
+    }
+}
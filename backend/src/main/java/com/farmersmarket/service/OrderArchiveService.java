@@ -0,0 +1,115 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves completed orders out of the hot {@code orders} collection into
+ * {@code orders_archive} so day-to-day order queries only touch recent data.
+ * Orders are copied in batches from a cursor; each batch is upserted into the
+ * archive before it is deleted from the hot collection, so an interrupted run
+ * can simply be repeated.
+ */
+@Service
+public class OrderArchiveService {
+
+    public static final String ARCHIVE_COLLECTION = "orders_archive";
+
+    private static final List<String> COMPLETED_STATUSES = List.of("DELIVERED", "CANCELLED");
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${order.archive.after-days:90}")
+    private long archiveAfterDays;
+
+    @Value("${order.archive.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureArchiveIndexes() {
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION)
+                .ensureIndex(new Index().on("customerId", Sort.Direction.ASC).on("orderDate", Sort.Direction.DESC));
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION)
+                .ensureIndex(new Index().on("orderDate", Sort.Direction.ASC));
+    }
+
+    public LocalDateTime getArchiveCutoff() {
+        return LocalDateTime.now().minusDays(archiveAfterDays);
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        archiveCompletedOrders();
+    }
+
+    public long archiveCompletedOrders() {
+        LocalDateTime cutoff = getArchiveCutoff();
+        Query query = new Query(Criteria.where("status").in(COMPLETED_STATUSES).and("updatedAt").lt(cutoff));
+        query.cursorBatchSize(batchSize);
+
+        long archived = 0;
+        List<Order> batch = new ArrayList<>(batchSize);
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            Iterator<Order> cursor = orders.iterator();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    archived += moveBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            archived += moveBatch(batch);
+        }
+
+        logger.info("Archived {} completed orders last updated before {}", archived, cutoff);
+        return archived;
+    }
+
+    private long moveBatch(List<Order> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class,
+                ARCHIVE_COLLECTION);
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            bulk.replaceOne(new Query(Criteria.where("id").is(order.getId())), order,
+                    FindAndReplaceOptions.options().upsert());
+            ids.add(order.getId());
+        }
+        bulk.execute();
+
+        return mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), Order.class).getDeletedCount();
+    }
+
+    public Optional<Order> findArchivedById(String id) {
+        return Optional.ofNullable(mongoTemplate.findById(id, Order.class, ARCHIVE_COLLECTION));
+    }
+
+    public List<Order> findArchived(Criteria criteria) {
+        return mongoTemplate.find(new Query(criteria), Order.class, ARCHIVE_COLLECTION);
+    }
+}
@@ -1,40 +1,128 @@
 package com.farmersmarket.service;
 
+import com.farmersmarket.dto.OrderSearchRequest;
+import com.farmersmarket.dto.OrderSearchResponse;
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.model.Money;
 import com.farmersmarket.model.Order;
+import com.farmersmarket.model.OrderStatus;
 import com.farmersmarket.model.Product;
 import com.farmersmarket.repository.OrderRepository;
-import com.farmersmarket.repository.ProductRepository;
+import com.farmersmarket.util.DecimalBackfill;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 200;
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ProductService productService;
 
-    public Order createOrder(Order order) {
-        // Update product quantities
-        for (Order.OrderItem item : order.getOrderItems()) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + item.getProductId()));
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
-            if (product.getQuantity() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient quantity for product: " + product.getName());
-            }
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TrendingService trendingService;
 
-            product.setQuantity(product.getQuantity() - item.getQuantity());
-            productRepository.save(product);
+    @Value("${order.search.count-limit:10000}")
+    private int searchCountLimit;
+
+    // Orders written before the version field existed would otherwise be treated as new on save
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOrderVersions() {
+        long updated = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L), Order.class).getModifiedCount();
+        if (updated > 0) {
+            logger.info("Initialised version on {} orders", updated);
         }
+    }
 
-        return orderRepository.save(order);
+    // Amounts written before Money was stored as Decimal128 are strings, which the searchOrders amount
+    // filter never matches; convert them in place, in live and archived orders
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDecimalAmounts() {
+        Query legacy = new Query(new Criteria().orOperator(DecimalBackfill.legacy("totalAmount"),
+                DecimalBackfill.legacy("orderItems.unitPrice"), DecimalBackfill.legacy("orderItems.totalPrice")));
+        AggregationUpdate update = DecimalBackfill.set(new Document()
+                .append("totalAmount", DecimalBackfill.toDecimal("$totalAmount"))
+                .append("orderItems", DecimalBackfill.toDecimalInArray("orderItems", "unitPrice", "totalPrice")));
+        long updated = mongoTemplate.updateMulti(legacy, update, Order.class).getModifiedCount()
+                + mongoTemplate.updateMulti(legacy, update, OrderArchiveService.ARCHIVE_COLLECTION).getModifiedCount();
+        if (updated > 0) {
+            logger.info("Converted amounts to Decimal128 on {} orders", updated);
+        }
+    }
+
+    public Order createOrder(Order order) {
+        // Every order starts at the beginning of its lifecycle
+        order.setStatus(OrderStatus.PENDING.name());
+
+        // Take stock with a conditional $inc per item and price each item from the catalog, not the client
+        long totalCents = 0;
+        List<Order.OrderItem> reserved = new ArrayList<>();
+        Order created;
+        try {
+            for (Order.OrderItem item : order.getOrderItems()) {
+                Product product = productService.updateProductQuantity(item.getProductId(), item.getQuantity());
+                reserved.add(item);
+                item.setUnitPrice(Money.of(product.getPrice()));
+                totalCents = Math.addExact(totalCents, item.getTotalPrice().getCents());
+            }
+            order.setTotalAmount(Money.ofCents(totalCents));
+            created = orderRepository.save(order);
+        } catch (RuntimeException e) {
+            for (Order.OrderItem item : reserved) {
+                productService.restoreProductQuantity(item.getProductId(), item.getQuantity());
+            }
+            throw e;
+        }
+        liveUpdateService.orderChanged(created);
+        recommendationService.orderPlaced(created);
+        trendingService.orderPlaced(created);
+        return created;
     }
 
     public List<Order> getAllOrders() {
@@ -45,6 +133,26 @@ public class OrderService {
         return orderRepository.findByCustomerId(customerId);
     }
 
+    public List<Order> getOrdersByCustomer(String customerId, boolean includeArchived) {
+        List<Order> orders = getOrdersByCustomer(customerId);
+        if (!includeArchived) {
+            return orders;
+        }
+        List<Order> history = new ArrayList<>(orders);
+        history.addAll(orderArchiveService.findArchived(Criteria.where("customerId").is(customerId)));
+        return history;
+    }
+
+    public List<Order> getOrdersByDateRange(java.time.LocalDateTime startDate, java.time.LocalDateTime endDate) {
+        List<Order> orders = new ArrayList<>(orderRepository.findByOrderDateBetween(startDate, endDate));
+        // Only ranges reaching back past the archive cutoff can contain archived orders
+        if (startDate.isBefore(orderArchiveService.getArchiveCutoff())) {
+            orders.addAll(orderArchiveService.findArchived(
+                    Criteria.where("orderDate").gt(startDate).lt(endDate)));
+        }
+        return orders;
+    }
+
     public List<Order> getOrdersByStatus(String status) {
         return orderRepository.findByStatus(status);
     }
@@ -53,38 +161,215 @@ public class OrderService {
         return orderRepository.findByProductId(productId);
     }
 
+    /**
+     * Admin order search over the live collection, newest first. Pages are
+     * addressed by a keyset cursor on (orderDate, id) rather than an offset,
+     * so every page costs the same index seek no matter how deep it is.
+     *
+     * The total is only computed for the first page: the collection's
+     * estimated count when there are no filters, otherwise a count that
+     * stops at {@code order.search.count-limit}.
+     */
+    public OrderSearchResponse searchOrders(OrderSearchRequest request) {
+        int size = Math.min(Math.max(request.getSize(), 1), MAX_SEARCH_PAGE_SIZE);
+
+        List<Criteria> filters = new ArrayList<>();
+        if (request.getStatus() != null) {
+            filters.add(Criteria.where("status").is(request.getStatus()));
+        }
+        if (request.getPaymentStatus() != null) {
+            filters.add(Criteria.where("paymentStatus").is(request.getPaymentStatus()));
+        }
+        if (request.getCustomerId() != null) {
+            filters.add(Criteria.where("customerId").is(request.getCustomerId()));
+        }
+        if (request.getProductId() != null) {
+            filters.add(Criteria.where("orderItems.productId").is(request.getProductId()));
+        }
+        if (request.getFrom() != null || request.getTo() != null) {
+            Criteria orderDate = Criteria.where("orderDate");
+            if (request.getFrom() != null) {
+                orderDate.gte(request.getFrom());
+            }
+            if (request.getTo() != null) {
+                orderDate.lt(request.getTo());
+            }
+            filters.add(orderDate);
+        }
+        if (request.getMinAmount() != null || request.getMaxAmount() != null) {
+            // Amounts are stored as Decimal128; see MoneyConverters
+            Criteria totalAmount = Criteria.where("totalAmount");
+            if (request.getMinAmount() != null) {
+                totalAmount.gte(new Decimal128(request.getMinAmount()));
+            }
+            if (request.getMaxAmount() != null) {
+                totalAmount.lte(new Decimal128(request.getMaxAmount()));
+            }
+            filters.add(totalAmount);
+        }
+
+        Long total = null;
+        boolean totalExact = false;
+        if (request.getCursor() == null) {
+            if (filters.isEmpty()) {
+                total = mongoTemplate.estimatedCount(Order.class);
+            } else {
+                Query countQuery = new Query(new Criteria().andOperator(filters)).limit(searchCountLimit + 1);
+                long count = mongoTemplate.count(countQuery, Order.class);
+                totalExact = count <= searchCountLimit;
+                total = Math.min(count, searchCountLimit);
+            }
+        }
+
+        List<Criteria> pageFilters = new ArrayList<>(filters);
+        if (request.getCursor() != null) {
+            OrderCursor after = OrderCursor.decode(request.getCursor());
+            pageFilters.add(new Criteria().orOperator(
+                    Criteria.where("orderDate").lt(after.orderDate),
+                    Criteria.where("orderDate").is(after.orderDate).and("id").lt(after.id)));
+        }
+        Query query = new Query(pageFilters.isEmpty() ? new Criteria() : new Criteria().andOperator(pageFilters))
+                .with(Sort.by(Sort.Direction.DESC, "orderDate", "id"))
+                .limit(size + 1);
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            Order last = orders.get(size - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        return new OrderSearchResponse(orders, nextCursor, total, totalExact);
+    }
+
     public Optional<Order> getOrderById(String id) {
-        return orderRepository.findById(id);
+        Optional<Order> order = orderRepository.findById(id);
+        return order.isPresent() ? order : orderArchiveService.findArchivedById(id);
     }
 
+    /**
+     * Moves an order to {@code status} in one round trip. The update only
+     * matches while the order is in a status that may move there, so
+     * concurrent transitions cannot skip or undo a step.
+     */
     public Order updateOrderStatus(String id, String status) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        OrderStatus target = parseStatus(status);
+
+        Order updated = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("status").in(target.getSourceNames())),
+                new Update().set("status", target.name())
+                        .set("updatedAt", LocalDateTime.now())
+                        .inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class);
 
-        order.setStatus(status);
-        order.setUpdatedAt(java.time.LocalDateTime.now());
+        if (updated == null) {
+            // Only the failure path pays for a second read, to report why
+            Order current = orderRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Order", id));
+            throw new ConflictException("Cannot change order status from " + current.getStatus() + " to " + target);
+        }
 
-        return orderRepository.save(order);
+        liveUpdateService.orderChanged(updated);
+        return updated;
     }
 
+    /**
+     * Applies an edit as a {@code $set} of the fields that actually changed,
+     * conditional on the version that was read. If another update got in
+     * first, the order is re-read and the edit re-validated against it.
+     */
     public Order updateOrder(String id, Order orderDetails) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            Order current = orderRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Order", id));
+
+            Update update = changedFields(current, orderDetails);
+            if (update == null) {
+                return current;
+            }
+            update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+
+            Order updated = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(id).and("version").is(current.getVersion())),
+                    update,
+                    FindAndModifyOptions.options().returnNew(true),
+                    Order.class);
+            if (updated != null) {
+                liveUpdateService.orderChanged(updated);
+                return updated;
+            }
+        }
+        throw new ConflictException("Order was modified concurrently, please retry");
+    }
+
+    private Update changedFields(Order current, Order details) {
+        Update update = new Update();
+        boolean changed = false;
+
+        if (details.getStatus() != null && !details.getStatus().equals(current.getStatus())) {
+            OrderStatus target = parseStatus(details.getStatus());
+            OrderStatus from = OrderStatus.fromName(current.getStatus());
+            if (from == null || !from.canTransitionTo(target)) {
+                throw new ConflictException("Cannot change order status from " + current.getStatus() + " to " + target);
+            }
+            update.set("status", target.name());
+            changed = true;
+        }
+        changed |= setIfChanged(update, "shippingAddress", current.getShippingAddress(), details.getShippingAddress());
+        changed |= setIfChanged(update, "billingAddress", current.getBillingAddress(), details.getBillingAddress());
+        changed |= setIfChanged(update, "paymentMethod", current.getPaymentMethod(), details.getPaymentMethod());
+        changed |= setIfChanged(update, "paymentStatus", current.getPaymentStatus(), details.getPaymentStatus());
+        changed |= setIfChanged(update, "notes", current.getNotes(), details.getNotes());
 
-        order.setStatus(orderDetails.getStatus());
-        order.setShippingAddress(orderDetails.getShippingAddress());
-        order.setBillingAddress(orderDetails.getBillingAddress());
-        order.setPaymentMethod(orderDetails.getPaymentMethod());
-        order.setPaymentStatus(orderDetails.getPaymentStatus());
-        order.setNotes(orderDetails.getNotes());
-        order.setUpdatedAt(java.time.LocalDateTime.now());
+        return changed ? update : null;
+    }
 
-        return orderRepository.save(order);
+    private static boolean setIfChanged(Update update, String field, Object current, Object value) {
+        if (Objects.equals(current, value)) {
+            return false;
+        }
+        update.set(field, value);
+        return true;
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        OrderStatus parsed = OrderStatus.fromName(status);
+        if (parsed == null) {
+            throw new BadRequestException("Unknown order status: " + status);
+        }
+        return parsed;
     }
 
     public void deleteOrder(String id) {
         Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("Order", id));
         orderRepository.delete(order);
     }
+
+    // Position after the last order of a page, as an opaque URL-safe token
+    private static final class OrderCursor {
+        private final LocalDateTime orderDate;
+        private final String id;
+
+        private OrderCursor(LocalDateTime orderDate, String id) {
+            this.orderDate = orderDate;
+            this.id = id;
+        }
+
+        private String encode() {
+            String raw = orderDate + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static OrderCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
 }
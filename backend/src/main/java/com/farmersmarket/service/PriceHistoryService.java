@@ -0,0 +1,134 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.dto.PriceHistoryBucket;
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.model.PriceHistoryPoint;
+import com.farmersmarket.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records product price and stock changes into the {@code price_history}
+ * time-series collection. Request threads only enqueue a point; a scheduled
+ * writer drains the queue and inserts the points in batches. If the queue is
+ * full the point is dropped and counted rather than slowing the request.
+ */
+@Service
+public class PriceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${price-history.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${price-history.batch-size:1000}")
+    private int batchSize;
+
+    private BlockingQueue<PriceHistoryPoint> pending;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean collectionReady;
+
+    @PostConstruct
+    public void init() {
+        pending = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    // After startup rather than in init, so refreshing the context needs no database
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCollection() {
+        if (!mongoTemplate.collectionExists(PriceHistoryPoint.class)) {
+            // Picks up the @TimeSeries options from the entity
+            mongoTemplate.createCollection(PriceHistoryPoint.class);
+        }
+        collectionReady = true;
+    }
+
+    public void record(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        if (!pending.offer(new PriceHistoryPoint(product))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${price-history.flush-interval-ms:2000}")
+    public void flush() {
+        if (!collectionReady) {
+            return; // An insert now would create a plain collection instead of a time series
+        }
+        List<PriceHistoryPoint> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                mongoTemplate.insert(batch, PriceHistoryPoint.class);
+            } catch (RuntimeException e) {
+                logger.error("Failed to write {} price history points", batch.size(), e);
+            }
+            batch.clear();
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            logger.warn("Dropped {} price history points because the write queue was full", lost);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Returns min/max/avg price and the last quantity per hour or day between
+     * {@code from} and {@code to}.
+     */
+    public List<PriceHistoryBucket> getHistory(String productId, String interval, Instant from, Instant to) {
+        if (!"hour".equals(interval) && !"day".equals(interval)) {
+            throw new BadRequestException("Unsupported interval: " + interval);
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("productId").is(productId).and("timestamp").gte(from).lt(to)),
+                Aggregation.sort(Sort.by("timestamp")),
+                Aggregation.project("price", "quantity")
+                        .and(context -> new Document("$dateTrunc",
+                                new Document("date", "$timestamp").append("unit", interval)))
+                        .as("bucket"),
+                Aggregation.group("bucket")
+                        .min("price").as("minPrice")
+                        .max("price").as("maxPrice")
+                        .avg("price").as("avgPrice")
+                        .last("quantity").as("quantity")
+                        .count().as("samples"),
+                Aggregation.project("minPrice", "maxPrice", "avgPrice", "quantity", "samples")
+                        .and("bucket").previousOperation(),
+                Aggregation.sort(Sort.by("bucket")));
+
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(PriceHistoryPoint.class),
+                PriceHistoryBucket.class).getMappedResults();
+    }
+}
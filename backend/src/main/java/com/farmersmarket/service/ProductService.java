@@ -1,21 +1,125 @@
 package com.farmersmarket.service;
 
+import com.farmersmarket.dto.BulkInventoryResponse;
+import com.farmersmarket.dto.InventoryAdjustment;
+import com.farmersmarket.dto.InventoryAdjustmentResult;
+import com.farmersmarket.dto.NearbyProductResponse;
+import com.farmersmarket.dto.ProductBrowseRequest;
+import com.farmersmarket.dto.ProductBrowseResponse;
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.Product;
+import com.farmersmarket.model.User;
 import com.farmersmarket.repository.ProductRepository;
+import com.farmersmarket.util.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 @Service
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_FARMER_FACETS = 20;
+
+    private static final int MAX_NEARBY_FARMS = 200;
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("price", "name", "quantity", "createdAt");
+
+    // Ownership and timestamps are not client-editable
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "description", "price", "quantity",
+            "category", "imageUrls", "unit", "organic", "available");
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Catalog listings read from secondaries with bounded staleness
+    @Autowired
+    @Qualifier("catalogMongoTemplate")
+    private MongoTemplate catalogMongoTemplate;
+
+    @Autowired
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Autowired
+    private MergePatch mergePatch;
+
+    // Prices written before they were stored as Decimal128 are strings, which price ranges, the price
+    // indexes and sorting would miss or order apart; convert them in place, server side
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDecimalPrices() {
+        long updated = mongoTemplate.updateMulti(
+                new Query(Criteria.where("price").type(JsonSchemaObject.Type.STRING)),
+                AggregationUpdate.update().set("price").toValue(
+                        ConvertOperators.Convert.convertValueOf("price").to("decimal").onErrorReturnValueOf("price")),
+                Product.class).getModifiedCount();
+        if (updated > 0) {
+            logger.info("Converted price to Decimal128 on {} products", updated);
+        }
+        long unparsable = mongoTemplate.count(
+                new Query(Criteria.where("price").type(JsonSchemaObject.Type.STRING)), Product.class);
+        if (unparsable > 0) {
+            logger.warn("{} products have a price that is not a number", unparsable);
+        }
+    }
+
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogIndex.index(saved);
+        priceHistoryService.record(saved);
+        return saved;
     }
 
     public List<Product> getAllProducts() {
@@ -23,23 +127,215 @@ public class ProductService {
     }
 
     public List<Product> getAvailableProducts() {
-        return productRepository.findByAvailable(true);
+        if (catalogIndex.isReady()) {
+            return catalogIndex.find(CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, true));
+        }
+        return findCatalog(Criteria.where("available").is(true));
     }
 
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryAndAvailable(category, true);
+        if (catalogIndex.isReady()) {
+            return catalogIndex.find(CatalogIndex.Filter.and(
+                    CatalogIndex.Filter.eq(CatalogIndex.CATEGORY, category),
+                    CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, true)));
+        }
+        return findCatalog(Criteria.where("category").is(category).and("available").is(true));
     }
 
     public List<Product> getProductsByFarmer(String farmerId) {
-        return productRepository.findByFarmerIdAndAvailable(farmerId, true);
+        if (catalogIndex.isReady()) {
+            return catalogIndex.find(CatalogIndex.Filter.and(
+                    CatalogIndex.Filter.eq(CatalogIndex.FARMER_ID, farmerId),
+                    CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, true)));
+        }
+        return findCatalog(Criteria.where("farmerId").is(farmerId).and("available").is(true));
     }
 
     public List<Product> searchProducts(String searchTerm) {
-        return productRepository.findByNameContainingIgnoreCase(searchTerm);
+        return findCatalog(Criteria.where("name").regex(Pattern.quote(searchTerm), "i"));
     }
 
     public List<Product> getOrganicProducts() {
-        return productRepository.findByOrganic(true);
+        if (catalogIndex.isReady()) {
+            return catalogIndex.find(CatalogIndex.Filter.eq(CatalogIndex.ORGANIC, true));
+        }
+        return findCatalog(Criteria.where("organic").is(true));
+    }
+
+    public ProductBrowseResponse browseProducts(ProductBrowseRequest request) {
+        int size = Math.min(Math.max(request.getSize(), 1), MAX_PAGE_SIZE);
+        int page = Math.max(request.getPage(), 0);
+        if (catalogIndex.isReady()) {
+            return browseFromIndex(request, page, size);
+        }
+
+        // One round trip: the page, the total and every facet come out of a single $facet stage
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(browseCriteria(request)),
+                Aggregation.facet(Aggregation.sort(browseSort(request.getSort())),
+                        Aggregation.skip((long) page * size),
+                        Aggregation.limit(size)).as("results")
+                        .and(Aggregation.count().as("count")).as("total")
+                        .and(Aggregation.sortByCount("category")).as("category")
+                        .and(Aggregation.sortByCount("organic")).as("organic")
+                        .and(Aggregation.sortByCount("unit")).as("unit")
+                        .and(Aggregation.sortByCount("farmerId"), Aggregation.limit(MAX_FARMER_FACETS)).as("farmerId"));
+
+        Document result = catalogMongoTemplate.aggregate(aggregation, Product.class, Document.class)
+                .getUniqueMappedResult();
+
+        List<Product> products = new ArrayList<>();
+        long total = 0;
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        if (result != null) {
+            for (Document document : result.getList("results", Document.class)) {
+                products.add(catalogMongoTemplate.getConverter().read(Product.class, document));
+            }
+            List<Document> count = result.getList("total", Document.class);
+            total = count.isEmpty() ? 0 : ((Number) count.get(0).get("count")).longValue();
+            for (String facet : List.of("category", "organic", "unit", "farmerId")) {
+                Map<String, Long> counts = new LinkedHashMap<>();
+                for (Document bucket : result.getList(facet, Document.class)) {
+                    counts.put(String.valueOf(bucket.get("_id")), ((Number) bucket.get("count")).longValue());
+                }
+                facets.put(facet, counts);
+            }
+        }
+
+        return new ProductBrowseResponse(products, total, page, size, facets);
+    }
+
+    public List<NearbyProductResponse> getNearbyProducts(GeoJsonPoint point, double radiusKm) {
+        // $geoNear over the 2dsphere index on farmer locations returns farms nearest first
+        NearQuery nearQuery = NearQuery.near(point)
+                .spherical(true)
+                .maxDistance(new Distance(radiusKm, Metrics.KILOMETERS))
+                .query(new Query(Criteria.where("role").is("FARMER").and("active").is(true)))
+                .limit(MAX_NEARBY_FARMS);
+
+        Map<String, Double> distanceByFarmer = new LinkedHashMap<>();
+        for (GeoResult<User> farm : catalogMongoTemplate.geoNear(nearQuery, User.class)) {
+            distanceByFarmer.put(farm.getContent().getId(), farm.getDistance().getValue());
+        }
+        if (distanceByFarmer.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> farmerIds = new ArrayList<>(distanceByFarmer.keySet());
+        List<Product> products = catalogIndex.isReady()
+                ? catalogIndex.find(CatalogIndex.Filter.and(
+                        CatalogIndex.Filter.in(CatalogIndex.FARMER_ID, farmerIds),
+                        CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, true)))
+                : findCatalog(Criteria.where("farmerId").in(farmerIds).and("available").is(true));
+
+        return products.stream()
+                .map(product -> new NearbyProductResponse(product, distanceByFarmer.get(product.getFarmerId())))
+                .sorted(Comparator.comparingDouble(NearbyProductResponse::getDistanceKm))
+                .toList();
+    }
+
+    private ProductBrowseResponse browseFromIndex(ProductBrowseRequest request, int page, int size) {
+        // Price is not bitmap-indexed; the index narrows on it before counting facets
+        Predicate<Product> priceFilter = null;
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            priceFilter = product -> product.getPrice() != null
+                    && (request.getMinPrice() == null || product.getPrice().compareTo(request.getMinPrice()) >= 0)
+                    && (request.getMaxPrice() == null || product.getPrice().compareTo(request.getMaxPrice()) <= 0);
+        }
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        CatalogIndex.Result result = catalogIndex.browse(indexFilter(request), priceFilter,
+                browseComparator(request.getSort()), offset, size, MAX_FARMER_FACETS);
+        return new ProductBrowseResponse(result.getProducts(), result.getTotal(), page, size, result.getFacets());
+    }
+
+    private CatalogIndex.Filter indexFilter(ProductBrowseRequest request) {
+        List<CatalogIndex.Filter> filters = new ArrayList<>();
+        if (request.getCategory() != null) {
+            // A comma-separated category list matches any of them
+            filters.add(CatalogIndex.Filter.in(CatalogIndex.CATEGORY, Arrays.asList(request.getCategory().split(","))));
+        }
+        if (request.getOrganic() != null) {
+            filters.add(CatalogIndex.Filter.eq(CatalogIndex.ORGANIC, request.getOrganic()));
+        }
+        if (request.getAvailable() != null) {
+            filters.add(CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, request.getAvailable()));
+        }
+        if (request.getFarmerId() != null) {
+            filters.add(CatalogIndex.Filter.eq(CatalogIndex.FARMER_ID, request.getFarmerId()));
+        }
+        if (request.getUnit() != null) {
+            filters.add(CatalogIndex.Filter.eq(CatalogIndex.UNIT, request.getUnit()));
+        }
+        return CatalogIndex.Filter.and(filters.toArray(CatalogIndex.Filter[]::new));
+    }
+
+    private Comparator<Product> browseComparator(String sort) {
+        Sort.Order order = browseSort(sort).iterator().next();
+        Comparator<Product> comparator = switch (order.getProperty()) {
+            case "price" -> Comparator.comparing(Product::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "name" -> Comparator.comparing(Product::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "quantity" -> Comparator.comparing(Product::getQuantity,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            default -> Comparator.comparing(Product::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+        };
+        if (order.isDescending()) {
+            comparator = comparator.reversed();
+        }
+        return comparator.thenComparing(Product::getId);
+    }
+
+    private Criteria browseCriteria(ProductBrowseRequest request) {
+        Criteria criteria = new Criteria();
+        if (request.getCategory() != null) {
+            criteria.and("category").in(Arrays.asList(request.getCategory().split(",")));
+        }
+        if (request.getOrganic() != null) {
+            criteria.and("organic").is(request.getOrganic());
+        }
+        if (request.getAvailable() != null) {
+            criteria.and("available").is(request.getAvailable());
+        }
+        if (request.getFarmerId() != null) {
+            criteria.and("farmerId").is(request.getFarmerId());
+        }
+        if (request.getUnit() != null) {
+            criteria.and("unit").is(request.getUnit());
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            Criteria price = criteria.and("price");
+            if (request.getMinPrice() != null) {
+                price.gte(request.getMinPrice());
+            }
+            if (request.getMaxPrice() != null) {
+                price.lte(request.getMaxPrice());
+            }
+        }
+        return criteria;
+    }
+
+    private Sort browseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by(Sort.Direction.DESC, "createdAt");
+        }
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field)) {
+            throw new BadRequestException("Cannot sort products by: " + field);
+        }
+        Sort.Direction direction = parts.length > 1 && "desc".equalsIgnoreCase(parts[1].trim())
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        // Tie-break on id so pages are stable
+        return Sort.by(direction, field).and(Sort.by("id"));
+    }
+
+    // BigDecimal.equals also compares scale, so 4.9 and 4.90 would count as a price change
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null || b == null ? a == b : a.compareTo(b) == 0;
+    }
+
+    private List<Product> findCatalog(Criteria criteria) {
+        return catalogMongoTemplate.find(new Query(criteria), Product.class);
     }
 
     public Optional<Product> getProductById(String id) {
@@ -48,7 +344,10 @@ public class ProductService {
 
     public Product updateProduct(String id, Product productDetails) {
         Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("Product", id));
+
+        boolean priceOrStockChanged = !samePrice(product.getPrice(), productDetails.getPrice())
+                || !Objects.equals(product.getQuantity(), productDetails.getQuantity());
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -61,27 +360,176 @@ public class ProductService {
         product.setAvailable(productDetails.isAvailable());
         product.setUpdatedAt(java.time.LocalDateTime.now());
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogIndex.index(saved);
+        if (priceOrStockChanged) {
+            priceHistoryService.record(saved);
+        }
+        liveUpdateService.productChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Applies a JSON Merge Patch in a single findAndModify, without reading
+     * the product first; only the supplied fields are written. Farmers may
+     * patch only their own products; admins may patch any.
+     */
+    public Product patchProduct(String id, String farmerId, boolean admin, JsonNode patch) {
+        Update update = mergePatch.toUpdate(patch, Product.class, PATCHABLE_FIELDS);
+        update.set("updatedAt", LocalDateTime.now());
+
+        Criteria criteria = Criteria.where("id").is(id);
+        if (!admin) {
+            criteria.and("farmerId").is(farmerId);
+        }
+        Product saved = mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (saved == null) {
+            if (!productRepository.existsById(id)) {
+                throw new NotFoundException("Product", id);
+            }
+            throw new AccessDeniedException("Product belongs to another farmer");
+        }
+
+        catalogIndex.index(saved);
+        if (patch.has("price") || patch.has("quantity")) {
+            priceHistoryService.record(saved);
+        }
+        liveUpdateService.productChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Appends an image URL to a product the farmer owns; admins may update
+     * any product. Adding the same URL twice is a no-op.
+     */
+    public Product addImage(String productId, String farmerId, boolean admin, String imageUrl) {
+        Criteria criteria = Criteria.where("id").is(productId);
+        if (!admin) {
+            criteria.and("farmerId").is(farmerId);
+        }
+        Update update = new Update().addToSet("imageUrls", imageUrl).set("updatedAt", LocalDateTime.now());
+        Product saved = mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (saved == null) {
+            if (!productRepository.existsById(productId)) {
+                throw new NotFoundException("Product", productId);
+            }
+            throw new AccessDeniedException("Product belongs to another farmer");
+        }
+        catalogIndex.index(saved);
+        return saved;
     }
 
     public void deleteProduct(String id) {
         Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("Product", id));
         product.setAvailable(false);
-        productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogIndex.index(saved);
+        liveUpdateService.productChanged(saved);
     }
 
-    public void updateProductQuantity(String productId, int quantitySold) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
+    /**
+     * Decrements stock in one conditional findAndModify, so concurrent orders
+     * can never drive the quantity below zero. Only the quantity is written,
+     * so concurrent bulk adjustments are not overwritten. Returns the product
+     * as it is after the decrement.
+     */
+    public Product updateProductQuantity(String productId, int quantitySold) {
+        Query query = new Query(Criteria.where("id").is(productId).and("quantity").gte(quantitySold));
+        Update update = new Update().inc("quantity", -quantitySold).set("updatedAt", LocalDateTime.now());
+        Product saved = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (saved == null) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new NotFoundException("Product", productId));
+            throw new ConflictException("Insufficient quantity for product: " + product.getName());
+        }
+        productChanged(saved);
+        return saved;
+    }
 
-        int newQuantity = product.getQuantity() - quantitySold;
-        if (newQuantity < 0) {
-            throw new RuntimeException("Insufficient product quantity");
+    // Puts back stock taken by updateProductQuantity for an order that could not be placed
+    public void restoreProductQuantity(String productId, int quantity) {
+        Update update = new Update().inc("quantity", quantity).set("updatedAt", LocalDateTime.now());
+        Product saved = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(productId)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (saved != null) {
+            productChanged(saved);
         }
+    }
 
-        product.setQuantity(newQuantity);
-        product.setUpdatedAt(java.time.LocalDateTime.now());
-        productRepository.save(product);
+    private void productChanged(Product saved) {
+        catalogIndex.index(saved);
+        priceHistoryService.record(saved);
+        liveUpdateService.productChanged(saved);
+    }
+
+    /**
+     * Applies many stock changes as one unordered bulk write. Each item is a
+     * single conditional {@code $set} or {@code $inc} guarded by ownership
+     * (unless {@code admin}) and, for decrements, by available stock.
+     *
+     * Every matched document is stamped with a token unique to the batch, so
+     * a single read afterwards tells which items were applied and why the
+     * others were not, without a round trip per item. Unlike a timestamp, the
+     * token survives concurrent stock updates that land before the read.
+     */
+    public BulkInventoryResponse adjustInventory(String farmerId, boolean admin,
+            List<InventoryAdjustment> adjustments) {
+        String batchToken = new ObjectId().toHexString();
+        LocalDateTime batchTime = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (InventoryAdjustment adjustment : adjustments) {
+            Criteria criteria = Criteria.where("id").is(adjustment.getProductId());
+            if (!admin) {
+                criteria.and("farmerId").is(farmerId);
+            }
+            Update update = new Update().set("lastAdjustment", batchToken).set("updatedAt", batchTime);
+            if (adjustment.isAbsolute()) {
+                update.set("quantity", adjustment.getQuantity());
+            } else {
+                if (adjustment.getDelta() < 0) {
+                    criteria.and("quantity").gte(-adjustment.getDelta());
+                }
+                update.inc("quantity", adjustment.getDelta());
+            }
+            bulk.updateOne(new Query(criteria), update);
+        }
+        bulk.execute();
+
+        List<String> ids = adjustments.stream().map(InventoryAdjustment::getProductId).toList();
+        Map<String, Product> current = new HashMap<>();
+        for (Product product : mongoTemplate.find(new Query(Criteria.where("id").in(ids)), Product.class)) {
+            current.put(product.getId(), product);
+        }
+
+        List<InventoryAdjustmentResult> results = new ArrayList<>(adjustments.size());
+        int applied = 0;
+        for (InventoryAdjustment adjustment : adjustments) {
+            Product product = current.get(adjustment.getProductId());
+            String status;
+            if (product == null) {
+                status = InventoryAdjustmentResult.NOT_FOUND;
+            } else if (!admin && !farmerId.equals(product.getFarmerId())) {
+                status = InventoryAdjustmentResult.NOT_OWNER;
+            } else if (batchToken.equals(product.getLastAdjustment())) {
+                status = InventoryAdjustmentResult.APPLIED;
+                applied++;
+                catalogIndex.index(product);
+                priceHistoryService.record(product);
+                liveUpdateService.productChanged(product);
+            } else if (!adjustment.isAbsolute() && adjustment.getDelta() < 0) {
+                status = InventoryAdjustmentResult.INSUFFICIENT_STOCK;
+            } else {
+                // Overwritten by a concurrent write after this batch
+                status = InventoryAdjustmentResult.NOT_APPLIED;
+            }
+            boolean visible = product != null && !InventoryAdjustmentResult.NOT_OWNER.equals(status);
+            results.add(new InventoryAdjustmentResult(adjustment.getProductId(), status,
+                    visible ? product.getQuantity() : null));
+        }
+        return new BulkInventoryResponse(applied, adjustments.size() - applied, results);
     }
 }
@@ -0,0 +1,371 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.model.Order;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.model.ProductRecommendation;
+import com.farmersmarket.model.ProductRecommendation.Neighbour;
+import com.farmersmarket.repository.ProductRepository;
+import com.farmersmarket.util.LongIntHashMap;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * "Frequently bought together" recommendations from order co-occurrence.
+ *
+ * A batch job streams the product ids of every live and archived order,
+ * maps each product to a dense int ordinal and counts how many orders
+ * contain each unordered pair. Counting runs on the common fork/join pool
+ * one batch of baskets at a time, so only a batch of baskets is held in
+ * memory; pair counts live in a primitive {@link LongIntHashMap} keyed by
+ * the two ordinals packed into a long. The top neighbours of each product
+ * are written to {@code product_recommendations} and served from memory.
+ *
+ * New orders bump the in-memory lists directly. That is approximate: a
+ * product outside a full top-K list cannot enter it until the next run,
+ * which recomputes everything from scratch.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${recommendations.top-k:10}")
+    private int topK;
+
+    @Value("${recommendations.batch-size:100000}")
+    private int batchSize;
+
+    // Very large baskets add a quadratic number of pairs and say little about affinity
+    @Value("${recommendations.max-basket-size:50}")
+    private int maxBasketSize;
+
+    private final Map<String, List<Neighbour>> neighbours = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try (Stream<ProductRecommendation> all = mongoTemplate.stream(new Query(), ProductRecommendation.class)) {
+            all.forEach(recommendation ->
+                    neighbours.put(recommendation.getProductId(), List.copyOf(recommendation.getNeighbours())));
+        }
+        logger.info("Loaded recommendations for {} products", neighbours.size());
+    }
+
+    @Scheduled(cron = "${recommendations.cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (rebuilding.get()) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Recomputes every product's neighbours from all orders and returns the
+     * number of products that have at least one.
+     */
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ConflictException("Recommendation rebuild already running");
+        }
+        try {
+            return rebuildLocked();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int rebuildLocked() {
+        long start = System.currentTimeMillis();
+        LocalDateTime runTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        Map<String, Integer> ordinals = new HashMap<>();
+        List<String> productIds = new ArrayList<>();
+        LongIntHashMap pairCounts = new LongIntHashMap(1 << 16);
+        long orders = 0;
+        for (String collection : List.of(mongoTemplate.getCollectionName(Order.class),
+                OrderArchiveService.ARCHIVE_COLLECTION)) {
+            orders += countCollection(collection, ordinals, productIds, pairCounts);
+        }
+
+        int[][] topIds = new int[productIds.size()][];
+        int[][] topCounts = new int[productIds.size()][];
+        pairCounts.forEach((pair, count) -> {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            offer(topIds, topCounts, a, b, count);
+            offer(topIds, topCounts, b, a, count);
+        });
+
+        int written = persist(productIds, topIds, topCounts, runTime);
+        mongoTemplate.remove(new Query(Criteria.where("updatedAt").lt(runTime)), ProductRecommendation.class);
+        logger.info("Built recommendations for {} products from {} orders ({} product pairs) in {} ms",
+                written, orders, pairCounts.size(), System.currentTimeMillis() - start);
+        return written;
+    }
+
+    private long countCollection(String collection, Map<String, Integer> ordinals, List<String> productIds,
+            LongIntHashMap pairCounts) {
+        long orders = 0;
+        List<int[]> batch = new ArrayList<>(batchSize);
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection).find()
+                .projection(Projections.include("orderItems.productId"))
+                .batchSize(10_000)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                int[] basket = toBasket(cursor.next(), ordinals, productIds);
+                orders++;
+                if (basket.length < 2 || basket.length > maxBasketSize) {
+                    continue;
+                }
+                batch.add(basket);
+                if (batch.size() == batchSize) {
+                    pairCounts.addAll(ForkJoinPool.commonPool().invoke(new PairCountTask(batch, 0, batch.size())));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            pairCounts.addAll(ForkJoinPool.commonPool().invoke(new PairCountTask(batch, 0, batch.size())));
+        }
+        return orders;
+    }
+
+    // Distinct, sorted product ordinals of one order
+    private int[] toBasket(Document order, Map<String, Integer> ordinals, List<String> productIds) {
+        List<?> items = order.get("orderItems", List.class);
+        if (items == null || items.isEmpty()) {
+            return new int[0];
+        }
+        int[] basket = new int[items.size()];
+        int n = 0;
+        for (Object item : items) {
+            String productId = item instanceof Document ? ((Document) item).getString("productId") : null;
+            if (productId != null) {
+                basket[n++] = ordinals.computeIfAbsent(productId, id -> {
+                    productIds.add(id);
+                    return productIds.size() - 1;
+                });
+            }
+        }
+        basket = Arrays.copyOf(basket, n);
+        Arrays.sort(basket);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || basket[distinct - 1] != basket[i]) {
+                basket[distinct++] = basket[i];
+            }
+        }
+        return distinct == n ? basket : Arrays.copyOf(basket, distinct);
+    }
+
+    // Keeps each product's neighbours sorted by count, at most topK of them
+    private void offer(int[][] topIds, int[][] topCounts, int product, int neighbour, int count) {
+        int[] ids = topIds[product];
+        int[] counts = topCounts[product];
+        if (ids == null) {
+            ids = new int[0];
+            counts = new int[0];
+        }
+        int length = ids.length;
+        if (length == topK && counts[length - 1] >= count) {
+            return;
+        }
+        int position = length;
+        while (position > 0 && counts[position - 1] < count) {
+            position--;
+        }
+        int newLength = Math.min(topK, length + 1);
+        int[] newIds = new int[newLength];
+        int[] newCounts = new int[newLength];
+        System.arraycopy(ids, 0, newIds, 0, position);
+        System.arraycopy(counts, 0, newCounts, 0, position);
+        newIds[position] = neighbour;
+        newCounts[position] = count;
+        System.arraycopy(ids, position, newIds, position + 1, newLength - position - 1);
+        System.arraycopy(counts, position, newCounts, position + 1, newLength - position - 1);
+        topIds[product] = newIds;
+        topCounts[product] = newCounts;
+    }
+
+    private int persist(List<String> productIds, int[][] topIds, int[][] topCounts, LocalDateTime runTime) {
+        int written = 0;
+        Set<String> kept = new HashSet<>();
+        BulkOperations bulk = null;
+        int pending = 0;
+        for (int product = 0; product < topIds.length; product++) {
+            if (topIds[product] == null) {
+                continue;
+            }
+            List<Neighbour> list = new ArrayList<>(topIds[product].length);
+            for (int i = 0; i < topIds[product].length; i++) {
+                list.add(new Neighbour(productIds.get(topIds[product][i]), topCounts[product][i]));
+            }
+            String productId = productIds.get(product);
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductRecommendation.class);
+            }
+            bulk.replaceOne(new Query(Criteria.where("productId").is(productId)),
+                    new ProductRecommendation(productId, list, runTime), FindAndReplaceOptions.options().upsert());
+            neighbours.put(productId, List.copyOf(list));
+            kept.add(productId);
+            written++;
+            if (++pending == 1000) {
+                bulk.execute();
+                bulk = null;
+                pending = 0;
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+        }
+        // Products that lost all neighbours, e.g. after orders were deleted
+        neighbours.keySet().retainAll(kept);
+        return written;
+    }
+
+    /**
+     * Counts a new order's pairs into the served lists until the next full
+     * rebuild.
+     */
+    public void orderPlaced(Order order) {
+        if (order.getOrderItems() == null || order.getOrderItems().size() < 2
+                || order.getOrderItems().size() > maxBasketSize) {
+            return;
+        }
+        List<String> productIds = order.getOrderItems().stream()
+                .map(Order.OrderItem::getProductId)
+                .distinct()
+                .toList();
+        for (String a : productIds) {
+            for (String b : productIds) {
+                if (!a.equals(b)) {
+                    neighbours.compute(a, (id, current) -> bump(current, b));
+                }
+            }
+        }
+    }
+
+    private List<Neighbour> bump(List<Neighbour> current, String productId) {
+        List<Neighbour> updated = new ArrayList<>(current != null ? current.size() + 1 : 1);
+        boolean found = false;
+        if (current != null) {
+            for (Neighbour neighbour : current) {
+                if (neighbour.getProductId().equals(productId)) {
+                    updated.add(new Neighbour(productId, neighbour.getCount() + 1));
+                    found = true;
+                } else {
+                    updated.add(neighbour);
+                }
+            }
+        }
+        if (!found) {
+            if (updated.size() >= topK) {
+                return current;
+            }
+            updated.add(new Neighbour(productId, 1));
+        }
+        updated.sort(Comparator.comparingInt(Neighbour::getCount).reversed());
+        return List.copyOf(updated);
+    }
+
+    /**
+     * Products most often bought with the given one, best first, skipping
+     * any that are no longer available.
+     */
+    public List<Product> getFrequentlyBoughtTogether(String productId, int limit) {
+        List<Neighbour> list = neighbours.get(productId);
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = list.stream().limit(limit).map(Neighbour::getProductId).toList();
+        Map<String, Product> byId = new LinkedHashMap<>();
+        ids.forEach(id -> byId.put(id, null));
+        productRepository.findAllById(ids).forEach(product -> byId.put(product.getId(), product));
+        return byId.values().stream()
+                .filter(product -> product != null && product.isAvailable())
+                .toList();
+    }
+
+    // Counts the pairs of a slice of baskets, splitting it across the pool
+    private static final class PairCountTask extends RecursiveTask<LongIntHashMap> {
+
+        private static final int THRESHOLD = 4096;
+
+        private final List<int[]> baskets;
+        private final int from;
+        private final int to;
+
+        private PairCountTask(List<int[]> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongIntHashMap compute() {
+            if (to - from <= THRESHOLD) {
+                LongIntHashMap counts = new LongIntHashMap((to - from) * 4);
+                for (int i = from; i < to; i++) {
+                    int[] basket = baskets.get(i);
+                    for (int x = 0; x < basket.length; x++) {
+                        for (int y = x + 1; y < basket.length; y++) {
+                            counts.addTo(((long) basket[x] << 32) | basket[y], 1);
+                        }
+                    }
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            PairCountTask left = new PairCountTask(baskets, from, middle);
+            left.fork();
+            LongIntHashMap right = new PairCountTask(baskets, middle, to).compute();
+            LongIntHashMap leftCounts = left.join();
+            // Merge the smaller map into the larger one
+            if (leftCounts.size() < right.size()) {
+                right.addAll(leftCounts);
+                return right;
+            }
+            leftCounts.addAll(right);
+            return leftCounts;
+        }
+    }
+}
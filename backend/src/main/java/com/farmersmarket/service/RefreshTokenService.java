@@ -0,0 +1,146 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.UnauthorizedException;
+import com.farmersmarket.model.RefreshToken;
+import com.farmersmarket.model.User;
+import com.farmersmarket.repository.RefreshTokenRepository;
+import com.farmersmarket.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. Tokens are 256 random bits, so a single
+ * SHA-256 is enough to store them safely and refreshing never touches
+ * BCrypt; a refresh costs one findAndModify, one user lookup and one insert.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Stackless, so one shared instance serves every rejected refresh
+    private static final UnauthorizedException INVALID_REFRESH_TOKEN =
+            new UnauthorizedException("Invalid refresh token");
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${jwt.refresh-expiration-days:30}")
+    private long refreshExpirationDays;
+
+    /**
+     * Starts a new token family for a fresh login and returns the raw token.
+     */
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one. A token that was already used
+     * means it leaked or was replayed, so its whole family is revoked.
+     */
+    public Rotation rotate(String rawToken) {
+        String hash = hash(rawToken);
+        RefreshToken consumed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("tokenHash").is(hash)
+                        .and("used").is(false)
+                        .and("expiresAt").gt(LocalDateTime.now())),
+                new Update().set("used", true),
+                RefreshToken.class);
+
+        if (consumed == null) {
+            refreshTokenRepository.findByTokenHash(hash)
+                    .filter(RefreshToken::isUsed)
+                    .ifPresent(replayed -> {
+                        logger.warn("Refresh token reuse detected for user {}; revoking its sessions",
+                                replayed.getUserId());
+                        revokeFamily(replayed.getFamily());
+                    });
+            throw INVALID_REFRESH_TOKEN;
+        }
+
+        User user = userRepository.findById(consumed.getUserId())
+                .filter(User::isActive)
+                .orElseThrow(() -> INVALID_REFRESH_TOKEN);
+
+        return new Rotation(user, issue(user.getId(), consumed.getFamily()));
+    }
+
+    /**
+     * Ends the session the token belongs to.
+     */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> revokeFamily(token.getFamily()));
+    }
+
+    public void revokeAllForUser(String userId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("userId").is(userId).and("used").is(false)),
+                new Update().set("used", true), RefreshToken.class);
+    }
+
+    private void revokeFamily(String family) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("family").is(family).and("used").is(false)),
+                new Update().set("used", true), RefreshToken.class);
+    }
+
+    private String issue(String userId, String family) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.insert(new RefreshToken(hash(rawToken), userId, family,
+                LocalDateTime.now().plusDays(refreshExpirationDays)));
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Rotation {
+        private final User user;
+        private final String refreshToken;
+
+        public Rotation(User user, String refreshToken) {
+            this.user = user;
+            this.refreshToken = refreshToken;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+}
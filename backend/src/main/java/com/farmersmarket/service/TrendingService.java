@@ -0,0 +1,217 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.model.Order;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.repository.ProductRepository;
+import com.farmersmarket.util.CountMinSketch;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Trending now": the products ordered most often over a sliding window of
+ * recent minutes.
+ *
+ * Each minute has its own Count-Min Sketch in a ring of {@code window + 1}
+ * buckets; the spare bucket is the one being cleared for the next minute, so
+ * clearing never touches a minute still inside the window. Recording an
+ * order is a few atomic adds and needs no lock. Products ordered within the
+ * window are tracked as candidates, and a scheduled refresh sums their
+ * estimates across the live buckets and publishes the top list, so reads
+ * just return the last published list.
+ *
+ * The window is rebuilt from recent orders at startup.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${trending.window-minutes:60}")
+    private int windowMinutes;
+
+    @Value("${trending.sketch-width:2048}")
+    private int sketchWidth;
+
+    @Value("${trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${trending.top-k:20}")
+    private int topK;
+
+    @Value("${trending.max-candidates:10000}")
+    private int maxCandidates;
+
+    private Bucket[] buckets;
+
+    // Product id -> last minute it was ordered
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+    private volatile List<Product> trending = List.of();
+
+    @PostConstruct
+    public void init() {
+        buckets = new Bucket[windowMinutes + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket(new CountMinSketch(sketchWidth, sketchDepth));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long now = currentMinute();
+        Date since = new Date(TimeUnit.MINUTES.toMillis(now - windowMinutes + 1));
+        long orders = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .find(Filters.gte("orderDate", since))
+                .projection(Projections.include("orderDate", "orderItems.productId"))
+                .cursor()) {
+            while (cursor.hasNext()) {
+                Document order = cursor.next();
+                Date orderDate = order.getDate("orderDate");
+                List<?> items = order.get("orderItems", List.class);
+                if (orderDate == null || items == null) {
+                    continue;
+                }
+                long minute = TimeUnit.MILLISECONDS.toMinutes(orderDate.getTime());
+                for (Object item : items) {
+                    if (item instanceof Document) {
+                        String productId = ((Document) item).getString("productId");
+                        if (productId != null) {
+                            record(productId, Math.min(minute, now));
+                        }
+                    }
+                }
+                orders++;
+            }
+        }
+        refresh();
+        logger.info("Trending window rebuilt from {} orders in {} ms", orders, System.currentTimeMillis() - start);
+    }
+
+    public void orderPlaced(Order order) {
+        if (order.getOrderItems() == null) {
+            return;
+        }
+        long minute = currentMinute();
+        for (Order.OrderItem item : order.getOrderItems()) {
+            if (item.getProductId() != null) {
+                record(item.getProductId(), minute);
+            }
+        }
+    }
+
+    public List<Product> getTrending(int limit) {
+        List<Product> current = trending;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:10000}")
+    public void refresh() {
+        long now = currentMinute();
+        // Prepare the spare bucket ahead of time so writers rarely have to
+        bucketFor(now + 1).prepare(now + 1);
+        candidates.values().removeIf(lastSeen -> lastSeen <= now - windowMinutes);
+
+        List<Map.Entry<String, Long>> scored = new ArrayList<>(candidates.size());
+        for (String productId : candidates.keySet()) {
+            long count = 0;
+            for (long minute = now - windowMinutes + 1; minute <= now; minute++) {
+                count += bucketFor(minute).estimate(productId, minute);
+            }
+            if (count > 0) {
+                scored.add(Map.entry(productId, count));
+            }
+        }
+        scored.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+        // Over-fetch a little so unavailable products can be skipped
+        List<String> ids = scored.stream().limit(topK * 2L).map(Map.Entry::getKey).toList();
+        Map<String, Product> byId = new LinkedHashMap<>();
+        ids.forEach(id -> byId.put(id, null));
+        productRepository.findAllById(ids).forEach(product -> byId.put(product.getId(), product));
+        trending = byId.values().stream()
+                .filter(product -> product != null && product.isAvailable())
+                .limit(topK)
+                .toList();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("windowMinutes", (long) windowMinutes);
+        stats.put("candidates", (long) candidates.size());
+        stats.put("sketchBytes", buckets[0].sketch.getSizeInBytes() * buckets.length);
+        return stats;
+    }
+
+    private void record(String productId, long minute) {
+        if (minute <= currentMinute() - windowMinutes) {
+            return;
+        }
+        Bucket bucket = bucketFor(minute);
+        if (!bucket.prepare(minute)) {
+            return; // The slot already belongs to a later minute
+        }
+        bucket.sketch.add(productId, 1);
+        if (candidates.size() < maxCandidates || candidates.containsKey(productId)) {
+            candidates.merge(productId, minute, Math::max);
+        }
+    }
+
+    private Bucket bucketFor(long minute) {
+        return buckets[(int) Math.floorMod(minute, (long) buckets.length)];
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private static final class Bucket {
+        private final CountMinSketch sketch;
+        private final AtomicLong minute = new AtomicLong(Long.MIN_VALUE);
+
+        private Bucket(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        // Claims the bucket for a newer minute; exactly one caller clears it
+        private boolean prepare(long target) {
+            long current = minute.get();
+            if (current < target && minute.compareAndSet(current, target)) {
+                sketch.clear();
+            }
+            return minute.get() == target;
+        }
+
+        private long estimate(String productId, long target) {
+            return minute.get() == target ? sketch.estimate(productId) : 0;
+        }
+    }
+}
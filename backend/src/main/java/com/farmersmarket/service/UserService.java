@@ -1,24 +1,67 @@
 package com.farmersmarket.service;
 
 import com.farmersmarket.dto.RegisterRequest;
+import com.farmersmarket.exception.NotFoundException;
 import com.farmersmarket.model.User;
 import com.farmersmarket.repository.UserRepository;
+import com.farmersmarket.security.jwt.TokenRevocationList;
+import com.farmersmarket.util.MergePatch;
+import com.farmersmarket.util.ZipCodeGeocoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class UserService {
 
+    // Identity, role and account state are changed through dedicated flows
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("firstName", "lastName", "phoneNumber", "address",
+            "city", "state", "zipCode");
+
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
+    private static final int MAX_LOGGED_ZIPS = 20;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ZipCodeGeocoder zipCodeGeocoder;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private MergePatch mergePatch;
+
     public User createUser(RegisterRequest registerRequest) {
         User user = new User();
         user.setFirstName(registerRequest.getFirstName());
@@ -31,6 +74,7 @@ public class UserService {
         user.setCity(registerRequest.getCity());
         user.setState(registerRequest.getState());
         user.setZipCode(registerRequest.getZipCode());
+        user.setLocation(locate(user));
 
         return userRepository.save(user);
     }
@@ -53,7 +97,7 @@ public class UserService {
 
     public User updateUser(String id, User userDetails) {
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("User", id));
 
         user.setFirstName(userDetails.getFirstName());
         user.setLastName(userDetails.getLastName());
@@ -62,19 +106,95 @@ public class UserService {
         user.setCity(userDetails.getCity());
         user.setState(userDetails.getState());
         user.setZipCode(userDetails.getZipCode());
+        user.setLocation(locate(user));
         user.setUpdatedAt(java.time.LocalDateTime.now());
 
         return userRepository.save(user);
     }
 
+    /**
+     * Applies a JSON Merge Patch in a single findAndModify, without reading
+     * the user first. A farmer's location follows a patched zip code, which
+     * takes one more update.
+     */
+    public User patchUser(String id, JsonNode patch) {
+        Update update = mergePatch.toUpdate(patch, User.class, PATCHABLE_FIELDS);
+        update.set("updatedAt", LocalDateTime.now());
+
+        User user = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user == null) {
+            throw new NotFoundException("User", id);
+        }
+
+        if (patch.has("zipCode")) {
+            GeoJsonPoint location = locate(user);
+            if (!Objects.equals(location, user.getLocation())) {
+                Update locationUpdate = location != null ? Update.update("location", location)
+                        : new Update().unset("location");
+                mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)), locationUpdate, User.class);
+                user.setLocation(location);
+            }
+        }
+        return user;
+    }
+
     public void deleteUser(String id) {
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("User", id));
         user.setActive(false);
         userRepository.save(user);
+
+        // Cut off existing sessions now rather than when their tokens expire
+        refreshTokenService.revokeAllForUser(user.getId());
+        tokenRevocationList.revoke(user.getEmail());
     }
 
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
+
+    // Geocode farmers created before locations were stored, or seeded directly
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillFarmerLocations() {
+        Query missing = new Query(Criteria.where("role").is("FARMER").and("location").exists(false));
+        missing.fields().include("zipCode");
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        long located = 0;
+        Set<String> unknownZips = new TreeSet<>();
+        long unlocated = 0;
+        for (User farmer : mongoTemplate.find(missing, User.class)) {
+            GeoJsonPoint location = zipCodeGeocoder.geocode(farmer.getZipCode());
+            if (location != null) {
+                bulk.updateOne(new Query(Criteria.where("id").is(farmer.getId())),
+                        new Update().set("location", location));
+                located++;
+            } else {
+                if (unknownZips.size() < MAX_LOGGED_ZIPS) {
+                    unknownZips.add(String.valueOf(farmer.getZipCode()));
+                }
+                unlocated++;
+            }
+        }
+        if (located > 0) {
+            bulk.execute();
+        }
+        logger.info("Geocoded {} farmer locations", located);
+        if (unlocated > 0) {
+            logger.warn("{} farmers could not be geocoded and are missing from nearby search; ZIP codes include {}",
+                    unlocated, unknownZips);
+        }
+    }
+
+    private GeoJsonPoint locate(User user) {
+        if (!"FARMER".equals(user.getRole())) {
+            return null;
+        }
+        GeoJsonPoint location = zipCodeGeocoder.geocode(user.getZipCode());
+        if (location == null) {
+            logger.warn("Could not geocode farmer ZIP code {}; the farmer will not appear in nearby search",
+                    user.getZipCode());
+        }
+        return location;
+    }
 }
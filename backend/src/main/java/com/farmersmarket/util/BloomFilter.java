@@ -0,0 +1,68 @@
+package com.farmersmarket.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings. {@link #mightContain}
+ * never returns a false negative, so callers use it to skip an exact lookup
+ * for the common case of a key that was never added.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final int numBits;
+
+    private final int numHashes;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int expected = Math.max(1, expectedInsertions);
+        long optimalBits = (long) (-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) >>> 6);
+    }
+
+    public void add(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            long mask = 1L << bit;
+            bits.getAndAccumulate(bit >>> 6, mask, (current, m) -> current | m);
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bitIndex(int combined) {
+        return (combined & Integer.MAX_VALUE) % numBits;
+    }
+
+    // FNV-1a over the characters followed by the MurmurHash3 finaliser
+    static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,58 @@
+package com.farmersmarket.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Count-Min Sketch over strings. {@link #estimate}
+ * never undercounts; it overcounts by at most {@code e / width} of the total
+ * added, with probability {@code 1 - e^-depth}. Updates are lock-free atomic
+ * adds, so any number of threads can count concurrently.
+ */
+public class CountMinSketch {
+
+    private final AtomicLongArray counters;
+
+    private final int width;
+
+    private final int depth;
+
+    public CountMinSketch(int width, int depth) {
+        this.width = Math.max(16, width);
+        this.depth = Math.max(1, depth);
+        this.counters = new AtomicLongArray(this.width * this.depth);
+    }
+
+    public void add(String key, long count) {
+        long hash = BloomFilter.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(row * width + column(h1 + (row + 1) * h2), count);
+        }
+    }
+
+    public long estimate(String key) {
+        long hash = BloomFilter.hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(row * width + column(h1 + (row + 1) * h2)));
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    public long getSizeInBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    private int column(int combined) {
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
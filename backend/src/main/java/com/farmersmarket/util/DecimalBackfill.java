@@ -0,0 +1,47 @@
+package com.farmersmarket.util;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+import java.util.List;
+
+/**
+ * Pipeline-update pieces that rewrite amounts older documents stored as
+ * strings or doubles as Decimal128, in place on the server. A value that does
+ * not parse is left as it was, and a missing field stays missing.
+ */
+public final class DecimalBackfill {
+
+    private DecimalBackfill() {
+    }
+
+    // Matches documents whose field, which may be reached through an array, still holds a legacy amount
+    public static Criteria legacy(String path) {
+        return Criteria.where(path).type(JsonSchemaObject.Type.STRING, JsonSchemaObject.Type.DOUBLE);
+    }
+
+    public static Document toDecimal(String expression) {
+        return new Document("$convert", new Document("input", expression)
+                .append("to", "decimal")
+                .append("onError", expression)
+                .append("onNull", expression));
+    }
+
+    // Converts the named fields of every element of an array field; a missing or null array is kept
+    public static Document toDecimalInArray(String arrayField, String... itemFields) {
+        Document converted = new Document();
+        for (String itemField : itemFields) {
+            converted.append(itemField, toDecimal("$$item." + itemField));
+        }
+        Document map = new Document("$map", new Document("input", "$" + arrayField)
+                .append("as", "item")
+                .append("in", new Document("$mergeObjects", List.of("$$item", converted))));
+        return new Document("$cond", List.of(new Document("$isArray", "$" + arrayField), map, "$" + arrayField));
+    }
+
+    public static AggregationUpdate set(Document fields) {
+        return AggregationUpdate.from(List.of(context -> new Document("$set", fields)));
+    }
+}
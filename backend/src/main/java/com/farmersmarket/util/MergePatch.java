@@ -0,0 +1,83 @@
+package com.farmersmarket.util;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a JSON Merge Patch (RFC 7396) into a Mongo update touching only the
+ * supplied fields. Each value is converted to the entity's field type and
+ * checked against that field's Bean Validation constraints, so a patch is
+ * held to the same rules as a full update without loading the document.
+ * A {@code null} member removes the field, which constraints such as
+ * {@code @NotNull} reject for required fields.
+ */
+@Component
+public class MergePatch {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    public Update toUpdate(JsonNode patch, Class<?> entityType, Set<String> patchableFields) {
+        if (patch == null || !patch.isObject() || patch.isEmpty()) {
+            throw new BadRequestException("A merge patch must be a non-empty JSON object");
+        }
+
+        Update update = new Update();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String name = entry.getKey();
+            if (!patchableFields.contains(name)) {
+                throw new BadRequestException("Field cannot be patched: " + name);
+            }
+
+            Object value = convert(entityType, name, entry.getValue());
+            Set<? extends ConstraintViolation<?>> violations = validator.validateValue(entityType, name, value);
+            if (!violations.isEmpty()) {
+                throw new BadRequestException(name + " " + violations.iterator().next().getMessage());
+            }
+
+            if (value == null) {
+                update.unset(name);
+            } else {
+                update.set(name, value);
+            }
+        }
+        return update;
+    }
+
+    private Object convert(Class<?> entityType, String name, JsonNode node) {
+        Field field = ReflectionUtils.findField(entityType, name);
+        if (field == null) {
+            throw new BadRequestException("Unknown field: " + name);
+        }
+        if (node.isNull()) {
+            if (field.getType().isPrimitive()) {
+                throw new BadRequestException(name + " cannot be removed");
+            }
+            return null;
+        }
+        JavaType type = objectMapper.getTypeFactory().constructType(field.getGenericType());
+        try {
+            return objectMapper.convertValue(node, type);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid value for " + name);
+        }
+    }
+}
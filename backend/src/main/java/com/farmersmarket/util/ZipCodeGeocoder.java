@@ -0,0 +1,83 @@
+package com.farmersmarket.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline ZIP code to centroid lookup. The bundled file only covers the demo
+ * data; point {@code geo.zip-centroids} at a full extract generated by
+ * {@code scripts/zip-centroids.sh}. ZIPs that are not covered resolve to no
+ * location and are counted in {@code geo.geocode.misses}.
+ */
+@Component
+public class ZipCodeGeocoder {
+
+    // A full ZCTA extract has over 33,000 entries; anything far smaller is a sample
+    private static final int FULL_DATASET_MIN_SIZE = 30000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipCodeGeocoder.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geo.zip-centroids:classpath:geo/zip-centroids.csv}")
+    private Resource centroidsFile;
+
+    private final Map<String, GeoJsonPoint> centroids = new HashMap<>();
+
+    private Counter misses;
+
+    @PostConstruct
+    public void load() throws IOException {
+        misses = Counter.builder("geo.geocode.misses")
+                .description("ZIP codes that could not be geocoded")
+                .register(meterRegistry);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                centroidsFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                double latitude = Double.parseDouble(columns[1].trim());
+                double longitude = Double.parseDouble(columns[2].trim());
+                // GeoJSON points are (longitude, latitude)
+                centroids.put(columns[0].trim(), new GeoJsonPoint(longitude, latitude));
+            }
+        }
+        if (centroids.size() < FULL_DATASET_MIN_SIZE) {
+            logger.warn("Loaded only {} ZIP centroids from {}; farmers elsewhere will not appear in nearby search",
+                    centroids.size(), centroidsFile.getDescription());
+        } else {
+            logger.info("Loaded {} ZIP centroids", centroids.size());
+        }
+    }
+
+    public GeoJsonPoint geocode(String zipCode) {
+        if (zipCode == null) {
+            return null;
+        }
+        String zip = zipCode.trim();
+        GeoJsonPoint location = centroids.get(zip.length() > 5 ? zip.substring(0, 5) : zip);
+        if (location == null) {
+            misses.increment();
+        }
+        return location;
+    }
+}
@@ -0,0 +1,43 @@
+package com.farmersmarket.config;
+
+import com.farmersmarket.model.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().moneyModule());
+
+    @Test
+    void writesAPlainNumberWithTwoDecimals() throws Exception {
+        assertThat(objectMapper.writeValueAsString(Money.parse("4.9"))).isEqualTo("4.90");
+        assertThat(objectMapper.writeValueAsString(Money.ofCents(-5))).isEqualTo("-0.05");
+    }
+
+    @Test
+    void readsIntegersDecimalsAndNumericStrings() throws Exception {
+        assertThat(objectMapper.readValue("5", Money.class)).isEqualTo(Money.ofCents(500));
+        assertThat(objectMapper.readValue("4.905", Money.class)).isEqualTo(Money.ofCents(491));
+        assertThat(objectMapper.readValue("\"4.9\"", Money.class)).isEqualTo(Money.ofCents(490));
+    }
+
+    @Test
+    void rejectsNonNumericStrings() {
+        assertThatThrownBy(() -> objectMapper.readValue("\"free\"", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+
+    @Test
+    void amountsThatOverflowCentsAreRejectedAsBadInput() {
+        assertThatThrownBy(() -> objectMapper.readValue("92233720368547759", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("1e20", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("\"1e20\"", Money.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+}
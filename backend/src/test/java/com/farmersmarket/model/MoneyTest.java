@@ -0,0 +1,108 @@
+package com.farmersmarket.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void roundsDecimalsHalfUpToWholeCents() {
+        assertThat(Money.of(new BigDecimal("1.005")).getCents()).isEqualTo(101);
+        assertThat(Money.of(new BigDecimal("1.004")).getCents()).isEqualTo(100);
+        assertThat(Money.of(new BigDecimal("-1.005")).getCents()).isEqualTo(-101);
+        assertThat(Money.of(new BigDecimal("4.9")).getCents()).isEqualTo(490);
+    }
+
+    @Test
+    void convertsDoublesThroughTheirShortestDecimalForm() {
+        assertThat(Money.of(0.1 + 0.2).getCents()).isEqualTo(30);
+        assertThat(Money.of(19.99).getCents()).isEqualTo(1999);
+    }
+
+    @Test
+    void parsesTrimmedDecimalStrings() {
+        assertThat(Money.parse(" 12.50 ")).isEqualTo(Money.ofCents(1250));
+        assertThatThrownBy(() -> Money.parse("12,50")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money price = Money.parse("0.10");
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(price);
+        }
+        assertThat(total).isEqualTo(Money.ofCents(100));
+        assertThat(total.minus(Money.ofCents(150)).isNegative()).isTrue();
+        assertThat(price.times(3)).isEqualTo(Money.ofCents(30));
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+        assertThatThrownBy(() -> max.plus(Money.ofCents(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofCents(Long.MIN_VALUE).minus(Money.ofCents(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1e20"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void printsExactlyTwoFractionDigits() {
+        assertThat(Money.ZERO).hasToString("0.00");
+        assertThat(Money.ofCents(490)).hasToString("4.90");
+        assertThat(Money.ofCents(5)).hasToString("0.05");
+        assertThat(Money.ofCents(-5)).hasToString("-0.05");
+        assertThat(Money.ofCents(-12345)).hasToString("-123.45");
+        assertThat(Money.ofCents(Long.MAX_VALUE)).hasToString("92233720368547758.07");
+        assertThat(Money.ofCents(Long.MIN_VALUE)).hasToString("-92233720368547758.08");
+    }
+
+    @Test
+    void toStringRoundTripsThroughBigDecimal() {
+        for (long cents : List.of(0L, 1L, -1L, 99L, 100L, -100L, 123456789L, Long.MAX_VALUE, Long.MIN_VALUE)) {
+            Money money = Money.ofCents(cents);
+            assertThat(new BigDecimal(money.toString())).isEqualByComparingTo(money.toBigDecimal());
+        }
+    }
+
+    @Test
+    void equalityIgnoresHowTheAmountWasWritten() {
+        assertThat(Money.parse("4.9")).isEqualTo(Money.parse("4.90"));
+        assertThat(Money.parse("4.9").hashCode()).isEqualTo(Money.parse("4.90").hashCode());
+        assertThat(Money.parse("4.9")).isLessThan(Money.parse("4.91"));
+    }
+
+    @Test
+    void orderItemTotalFollowsWhicheverFieldIsSetLast() {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setQuantity(3);
+        assertThat(item.getTotalPrice()).isNull();
+        item.setUnitPrice(Money.parse("2.50"));
+        assertThat(item.getTotalPrice()).isEqualTo(Money.parse("7.50"));
+        item.setQuantity(4);
+        assertThat(item.getTotalPrice()).isEqualTo(Money.parse("10.00"));
+    }
+
+    @Test
+    void orderItemTotalOverflowThrows() {
+        Order.OrderItem item = new Order.OrderItem();
+        item.setUnitPrice(Money.ofCents(Long.MAX_VALUE / 2));
+        assertThatThrownBy(() -> item.setQuantity(3)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void cartTotalSumsItemsAndSkipsIncompleteOnes() {
+        Cart cart = new Cart("customer");
+        cart.setCartItems(List.of(
+                new Cart.CartItem("a", "Apples", 2, Money.parse("1.25"), null),
+                new Cart.CartItem("b", "Beans", 1, Money.parse("3.10"), null),
+                new Cart.CartItem("c", "Corn", null, Money.parse("9.99"), null)));
+        assertThat(cart.getTotalAmount()).isEqualTo(Money.parse("5.60"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.farmersmarket.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusTest {
+
+    @Test
+    void followsTheLifecycle() {
+        assertThat(allowedFrom(OrderStatus.PENDING)).containsExactlyInAnyOrder(OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+        assertThat(allowedFrom(OrderStatus.CONFIRMED)).containsExactlyInAnyOrder(OrderStatus.SHIPPED, OrderStatus.CANCELLED);
+        assertThat(allowedFrom(OrderStatus.SHIPPED)).containsExactlyInAnyOrder(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+        assertThat(allowedFrom(OrderStatus.DELIVERED)).isEmpty();
+        assertThat(allowedFrom(OrderStatus.CANCELLED)).isEmpty();
+    }
+
+    @Test
+    void neverStaysInPlaceOrGoesBackToPending() {
+        for (OrderStatus status : OrderStatus.values()) {
+            assertThat(status.canTransitionTo(status)).as(status.name()).isFalse();
+            assertThat(status.canTransitionTo(OrderStatus.PENDING)).as(status.name()).isFalse();
+        }
+    }
+
+    @Test
+    void onlyDeliveredAndCancelledAreFinal() {
+        assertThat(EnumSet.allOf(OrderStatus.class).stream().filter(OrderStatus::isFinal))
+                .containsExactlyInAnyOrder(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void sourceNamesAreTheInverseOfTheTransitions() {
+        for (OrderStatus target : OrderStatus.values()) {
+            for (OrderStatus source : OrderStatus.values()) {
+                assertThat(target.getSourceNames().contains(source.name()))
+                        .as(source + " -> " + target)
+                        .isEqualTo(source.canTransitionTo(target));
+            }
+        }
+        assertThat(OrderStatus.PENDING.getSourceNames()).isEmpty();
+        assertThat(OrderStatus.CANCELLED.getSourceNames()).containsExactly("PENDING", "CONFIRMED", "SHIPPED");
+    }
+
+    @Test
+    void fromNameIsExactAndNullSafe() {
+        assertThat(OrderStatus.fromName("SHIPPED")).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(OrderStatus.fromName("shipped")).isNull();
+        assertThat(OrderStatus.fromName("LOST")).isNull();
+        assertThat(OrderStatus.fromName(null)).isNull();
+    }
+
+    private static Set<OrderStatus> allowedFrom(OrderStatus source) {
+        Set<OrderStatus> allowed = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus target : OrderStatus.values()) {
+            if (source.canTransitionTo(target)) {
+                allowed.add(target);
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,129 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.model.Cart;
+import com.farmersmarket.model.Money;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.repository.CartRepository;
+import com.farmersmarket.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CartStore cartStore;
+
+    @InjectMocks
+    private CartService cartService;
+
+    @Test
+    void returnedCartIsACopyThatLaterChangesDoNotTouch() {
+        Cart live = emptyCart("alice");
+        when(cartStore.getOrLoad("alice")).thenReturn(live);
+        when(productRepository.findById("kale")).thenReturn(Optional.of(product("kale", 50)));
+
+        Cart snapshot = cartService.addToCart("alice", "kale", 2);
+        cartService.updateCartItem("alice", "kale", 5);
+
+        assertThat(snapshot).isNotSameAs(live);
+        assertThat(snapshot.getCartItems().get(0).getQuantity()).isEqualTo(2);
+        assertThat(snapshot.getTotalAmount()).isEqualTo(Money.parse("6.00"));
+        assertThat(live.getCartItems().get(0).getQuantity()).isEqualTo(5);
+
+        snapshot.getCartItems().clear();
+        assertThat(live.getCartItems()).hasSize(1);
+        verify(cartStore, times(2)).markDirty(live);
+    }
+
+    @Test
+    void concurrentAddsToTheSameCartAreNotLost() throws Exception {
+        Cart live = emptyCart("alice");
+        when(cartStore.getOrLoad("alice")).thenReturn(live);
+        when(productRepository.findById("kale")).thenReturn(Optional.of(product("kale", 1_000_000)));
+
+        int threads = 8;
+        int addsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < addsPerThread; i++) {
+                        cartService.addToCart("alice", "kale", 1);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(live.getCartItems()).hasSize(1);
+        assertThat(live.getCartItems().get(0).getQuantity()).isEqualTo(threads * addsPerThread);
+        verify(cartStore, times(threads * addsPerThread)).markDirty(live);
+    }
+
+    @Test
+    void unavailableStockIsRejectedWithoutTouchingTheCart() {
+        Cart live = emptyCart("alice");
+        when(cartStore.getOrLoad("alice")).thenReturn(live);
+        when(productRepository.findById("kale")).thenReturn(Optional.of(product("kale", 1)));
+
+        assertThatThrownBy(() -> cartService.addToCart("alice", "kale", 2)).isInstanceOf(ConflictException.class);
+        assertThat(live.getCartItems()).isEmpty();
+        verify(cartStore, never()).markDirty(any());
+    }
+
+    @Test
+    void clearingDropsTheCachedCartBeforeDeletingTheStoredOne() {
+        cartService.clearCart("alice");
+
+        var order = org.mockito.Mockito.inOrder(cartStore, cartRepository);
+        order.verify(cartStore).remove("alice");
+        order.verify(cartRepository).deleteByCustomerId("alice");
+    }
+
+    private static Cart emptyCart(String customerId) {
+        Cart cart = new Cart(customerId);
+        cart.setCartItems(new ArrayList<>());
+        return cart;
+    }
+
+    private static Product product(String id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(id);
+        product.setPrice(new BigDecimal("3.00"));
+        product.setQuantity(quantity);
+        return product;
+    }
+}
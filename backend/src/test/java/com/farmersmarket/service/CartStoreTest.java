@@ -0,0 +1,294 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.model.Cart;
+import com.farmersmarket.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartStoreTest {
+
+    private CartRepository cartRepository;
+
+    private InvalidationRegistry invalidationRegistry;
+
+    private CartStore cartStore;
+
+    // Two customers that share a shard; with max-carts 16 each shard holds one cart
+    private String first;
+
+    private String second;
+
+    @BeforeEach
+    void setUp() {
+        cartRepository = mock(CartRepository.class);
+        invalidationRegistry = mock(InvalidationRegistry.class);
+        cartStore = new CartStore();
+        ReflectionTestUtils.setField(cartStore, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(cartStore, "mongoTemplate", mock(MongoTemplate.class));
+        ReflectionTestUtils.setField(cartStore, "invalidationRegistry", invalidationRegistry);
+        ReflectionTestUtils.setField(cartStore, "maxCarts", 16);
+        ReflectionTestUtils.setField(cartStore, "idleEvictMs", 60_000L);
+        ReflectionTestUtils.setField(cartStore, "flushBeforeCheckout", true);
+
+        first = "customer-0";
+        second = null;
+        for (int i = 1; second == null; i++) {
+            String candidate = "customer-" + i;
+            if (shardOf(candidate) == shardOf(first)) {
+                second = candidate;
+            }
+        }
+    }
+
+    @Test
+    void newCartIsWrittenOnceAndOnlyWhileDirty() {
+        Cart cart = cartStore.getOrLoad(first);
+
+        cartStore.flush(first);
+        cartStore.flush(first);
+        cartStore.flushDirty();
+        verify(cartRepository, times(1)).save(cart);
+
+        cartStore.markDirty(cart);
+        cartStore.flushDirty();
+        verify(cartRepository, times(2)).save(cart);
+    }
+
+    @Test
+    void repeatedLoadsShareOneCachedInstance() {
+        Cart cart = cartStore.getOrLoad(first);
+
+        assertThat(cartStore.getOrLoad(first)).isSameAs(cart);
+        verify(cartRepository, times(1)).findByCustomerId(first);
+    }
+
+    @Test
+    void sizeEvictionWritesADirtyCartBeforeDroppingIt() {
+        Cart firstCart = cartStore.getOrLoad(first);
+
+        cartStore.getOrLoad(second);
+
+        verify(cartRepository).save(firstCart);
+        cartStore.getOrLoad(first);
+        verify(cartRepository, times(2)).findByCustomerId(first);
+    }
+
+    @Test
+    void cartBeingWrittenForEvictionIsStillServedFromMemory() throws Exception {
+        Cart firstCart = cartStore.getOrLoad(first);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockSaveOf(firstCart, saving, release);
+
+        CompletableFuture<Cart> loadingSecond = CompletableFuture.supplyAsync(() -> cartStore.getOrLoad(second));
+        assertThat(saving.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The stored copy is stale until the save lands, so it must not be reloaded
+        assertThat(cartStore.getOrLoad(first)).isSameAs(firstCart);
+        verify(cartRepository, times(1)).findByCustomerId(first);
+
+        release.countDown();
+        loadingSecond.get(10, TimeUnit.SECONDS);
+        cartStore.getOrLoad(first);
+        verify(cartRepository, times(2)).findByCustomerId(first);
+    }
+
+    @Test
+    void mutationDuringTheEvictionWriteKeepsTheCartForTheNextFlush() throws Exception {
+        Cart firstCart = cartStore.getOrLoad(first);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        blockSaveOf(firstCart, saving, release);
+
+        CompletableFuture<Cart> loadingSecond = CompletableFuture.supplyAsync(() -> cartStore.getOrLoad(second));
+        assertThat(saving.await(10, TimeUnit.SECONDS)).isTrue();
+        cartStore.markDirty(firstCart);
+        release.countDown();
+        loadingSecond.get(10, TimeUnit.SECONDS);
+
+        assertThat(cartStore.getOrLoad(first)).isSameAs(firstCart);
+        verify(cartRepository, times(1)).findByCustomerId(first);
+        cartStore.flushDirty();
+        verify(cartRepository, times(2)).save(firstCart);
+    }
+
+    @Test
+    void failedWriteKeepsTheCartCachedAndDirty() {
+        Cart cart = cartStore.getOrLoad(first);
+        doThrow(new IllegalStateException("mongo down")).doReturn(cart).when(cartRepository).save(cart);
+
+        cartStore.flush(first);
+
+        assertThat(cartStore.getOrLoad(first)).isSameAs(cart);
+        cartStore.flushDirty();
+        verify(cartRepository, times(2)).save(cart);
+        cartStore.flushDirty();
+        verify(cartRepository, times(2)).save(cart);
+    }
+
+    @Test
+    void idleCartsAreWrittenIfDirtyThenEvicted() {
+        Cart stored = storedCart("cart-1", first);
+        when(cartRepository.findByCustomerId(first)).thenReturn(Optional.of(stored));
+        String other = otherShardCustomer();
+        Cart fresh = cartStore.getOrLoad(other);
+        cartStore.getOrLoad(first);
+        ReflectionTestUtils.setField(cartStore, "idleEvictMs", -60_000L);
+
+        cartStore.flushDirty();
+
+        verify(cartRepository).save(fresh);
+        verify(cartRepository, never()).save(stored);
+        cartStore.getOrLoad(first);
+        cartStore.getOrLoad(other);
+        verify(cartRepository, times(2)).findByCustomerId(first);
+        verify(cartRepository, times(2)).findByCustomerId(other);
+    }
+
+    @Test
+    void markDirtyAfterRemoveDoesNotWriteTheCartBack() {
+        Cart cart = cartStore.getOrLoad(first);
+
+        cartStore.remove(first);
+        cartStore.markDirty(cart);
+        cartStore.flushDirty();
+
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void markDirtyAfterAnLruEvictionWritesTheCartDirectly() {
+        Cart stored = storedCart("cart-1", first);
+        when(cartRepository.findByCustomerId(first)).thenReturn(Optional.of(stored));
+        Cart cart = cartStore.getOrLoad(first);
+        cartStore.getOrLoad(second);
+        verify(cartRepository, never()).save(stored);
+
+        cartStore.markDirty(cart);
+
+        verify(cartRepository).save(stored);
+    }
+
+    @Test
+    void deleteFromAnotherInstanceEvictsAndIsNotWrittenBack() {
+        Consumer<InvalidationEvent> subscriber = subscriber();
+        Cart stored = storedCart("cart-1", first);
+        when(cartRepository.findByCustomerId(first)).thenReturn(Optional.of(stored), Optional.empty());
+        Cart cart = cartStore.getOrLoad(first);
+
+        subscriber.accept(new InvalidationEvent("carts", "cart-1", "delete", null));
+        cartStore.markDirty(cart);
+
+        assertThat(cartStore.getOrLoad(first)).isNotSameAs(cart);
+        verify(cartRepository, never()).save(stored);
+    }
+
+    @Test
+    void deleteOfACartFirstSavedByThisInstanceIsTracked() {
+        Consumer<InvalidationEvent> subscriber = subscriber();
+        Cart cart = cartStore.getOrLoad(first);
+        doAnswer(invocation -> {
+            cart.setId("cart-new");
+            return cart;
+        }).when(cartRepository).save(cart);
+        cartStore.flush(first);
+
+        subscriber.accept(new InvalidationEvent("carts", "cart-new", "delete", null));
+
+        assertThat(cartStore.getOrLoad(first)).isNotSameAs(cart);
+    }
+
+    @Test
+    void resetEvictsCleanCartsButKeepsUnsavedChanges() {
+        Consumer<InvalidationEvent> subscriber = subscriber();
+        when(cartRepository.findByCustomerId(first))
+                .thenAnswer(invocation -> Optional.of(storedCart("cart-1", first)));
+        Cart clean = cartStore.getOrLoad(first);
+        String other = otherShardCustomer();
+        Cart dirty = cartStore.getOrLoad(other);
+
+        subscriber.accept(InvalidationEvent.reset("carts"));
+
+        assertThat(cartStore.getOrLoad(first)).isNotSameAs(clean);
+        assertThat(cartStore.getOrLoad(other)).isSameAs(dirty);
+    }
+
+    @Test
+    void checkoutFlushCanBeTurnedOff() {
+        cartStore.getOrLoad(first);
+        ReflectionTestUtils.setField(cartStore, "flushBeforeCheckout", false);
+        cartStore.flushBeforeCheckout(first);
+        verify(cartRepository, never()).save(any());
+
+        ReflectionTestUtils.setField(cartStore, "flushBeforeCheckout", true);
+        cartStore.flushBeforeCheckout(first);
+        verify(cartRepository).save(any());
+    }
+
+    @Test
+    void shutdownFlushWritesDirtyCartsRegardlessOfIdleness() {
+        Cart cart = cartStore.getOrLoad(first);
+
+        cartStore.flushOnShutdown();
+
+        verify(cartRepository).save(cart);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<InvalidationEvent> subscriber() {
+        cartStore.subscribe();
+        ArgumentCaptor<Consumer<InvalidationEvent>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationRegistry).subscribe(eq("carts"), captor.capture());
+        return captor.getValue();
+    }
+
+    private void blockSaveOf(Cart cart, CountDownLatch saving, CountDownLatch release) {
+        doAnswer(invocation -> {
+            saving.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            return cart;
+        }).when(cartRepository).save(cart);
+    }
+
+    private String otherShardCustomer() {
+        for (int i = 1; ; i++) {
+            String candidate = "customer-" + i;
+            if (shardOf(candidate) != shardOf(first)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static Cart storedCart(String id, String customerId) {
+        Cart cart = new Cart(customerId);
+        cart.setId(id);
+        cart.setCartItems(new ArrayList<>(List.of()));
+        return cart;
+    }
+
+    private static int shardOf(String customerId) {
+        return (customerId.hashCode() & 0x7fffffff) % 16;
+    }
+}
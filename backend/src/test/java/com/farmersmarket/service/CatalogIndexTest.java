@@ -0,0 +1,201 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogIndexTest {
+
+    private static final List<String> CATEGORIES = List.of("vegetables", "fruit", "dairy", "bakery");
+
+    // Ties on price are broken by id so the expected order is total
+    private static final Comparator<Product> BY_PRICE = Comparator.comparing(Product::getPrice)
+            .thenComparing(Product::getId);
+
+    private CatalogIndex index;
+
+    private List<Product> catalog;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+
+        Random random = new Random(42);
+        catalog = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Product product = product("p" + i, CATEGORIES.get(i % CATEGORIES.size()), "farmer-" + (i % 7),
+                    BigDecimal.valueOf(random.nextInt(2_000), 2));
+            product.setOrganic(i % 3 == 0);
+            product.setAvailable(i % 5 != 0);
+            catalog.add(product);
+            index.index(product);
+        }
+    }
+
+    @Test
+    void everyPageMatchesTheSameSliceOfAFullSort() {
+        CatalogIndex.Filter filter = CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, true);
+        List<Product> expected = sorted(catalog.stream().filter(Product::isAvailable).toList(), BY_PRICE);
+
+        for (int limit : new int[] {1, 7, 20, 100, 1_000}) {
+            for (int offset = 0; offset < expected.size(); offset += limit) {
+                CatalogIndex.Result result = index.browse(filter, null, BY_PRICE, offset, limit, 10);
+
+                assertThat(result.getProducts())
+                        .as("offset %d, limit %d", offset, limit)
+                        .containsExactlyElementsOf(expected.subList(offset, Math.min(offset + limit, expected.size())));
+                assertThat(result.getTotal()).isEqualTo(expected.size());
+            }
+        }
+    }
+
+    @Test
+    void descendingOrderPagesToo() {
+        Comparator<Product> order = BY_PRICE.reversed();
+        List<Product> expected = sorted(catalog, order);
+
+        CatalogIndex.Result result = index.browse(CatalogIndex.Filter.all(), null, order, 40, 25, 10);
+
+        assertThat(result.getProducts()).containsExactlyElementsOf(expected.subList(40, 65));
+    }
+
+    @Test
+    void pageBeyondTheEndIsEmptyButStillCounts() {
+        CatalogIndex.Result result = index.browse(CatalogIndex.Filter.all(), null, BY_PRICE, 500, 20, 10);
+
+        assertThat(result.getProducts()).isEmpty();
+        assertThat(result.getTotal()).isEqualTo(500);
+        assertThat(index.browse(CatalogIndex.Filter.all(), null, BY_PRICE, 490, 20, 10).getProducts()).hasSize(10);
+        assertThat(index.browse(CatalogIndex.Filter.all(), null, BY_PRICE, 0, 0, 10).getProducts()).isEmpty();
+    }
+
+    @Test
+    void offsetNearIntegerMaxDoesNotOverflow() {
+        CatalogIndex.Result result = index.browse(CatalogIndex.Filter.all(), null, BY_PRICE,
+                Integer.MAX_VALUE - 5, 100, 10);
+
+        assertThat(result.getProducts()).isEmpty();
+    }
+
+    @Test
+    void refineNarrowsMatchesBeforePagingAndCounting() {
+        Predicate<Product> cheap = product -> product.getPrice().compareTo(new BigDecimal("5.00")) < 0;
+        CatalogIndex.Filter fruit = CatalogIndex.Filter.eq(CatalogIndex.CATEGORY, "fruit");
+        List<Product> expected = sorted(catalog.stream()
+                .filter(product -> product.getCategory().equals("fruit"))
+                .filter(cheap)
+                .toList(), BY_PRICE);
+
+        CatalogIndex.Result result = index.browse(fruit, cheap, BY_PRICE, 0, 10, 10);
+
+        assertThat(result.getTotal()).isEqualTo(expected.size());
+        assertThat(result.getProducts()).containsExactlyElementsOf(expected.subList(0, 10));
+        assertThat(result.getFacets().get(CatalogIndex.CATEGORY)).containsOnlyKeys("fruit");
+    }
+
+    @Test
+    void facetsCountTheMatchesPerValueMostCommonFirst() {
+        CatalogIndex.Filter filter = CatalogIndex.Filter.not(CatalogIndex.Filter.eq(CatalogIndex.CATEGORY, "dairy"));
+
+        CatalogIndex.Result result = index.browse(filter, null, BY_PRICE, 0, 5, 2);
+
+        Map<String, Long> categories = result.getFacets().get(CatalogIndex.CATEGORY);
+        assertThat(categories).hasSize(2).doesNotContainKey("dairy");
+        assertThat(categories.values()).allMatch(count -> count == 125);
+        Map<String, Long> organic = result.getFacets().get(CatalogIndex.ORGANIC);
+        long expectedOrganic = catalog.stream()
+                .filter(product -> !product.getCategory().equals("dairy"))
+                .filter(Product::isOrganic)
+                .count();
+        assertThat(organic).containsEntry("true", expectedOrganic).containsEntry("false", 375 - expectedOrganic);
+        assertThat(result.getFacets().get(CatalogIndex.FARMER_ID)).hasSize(2);
+    }
+
+    @Test
+    void reindexingMovesAProductBetweenValues() {
+        Product moved = product("p1", "dairy", "farmer-1", new BigDecimal("0.01"));
+        index.index(moved);
+
+        List<Product> dairy = index.find(CatalogIndex.Filter.eq(CatalogIndex.CATEGORY, "dairy"));
+        List<Product> fruit = index.find(CatalogIndex.Filter.eq(CatalogIndex.CATEGORY, "fruit"));
+        assertThat(dairy).contains(moved);
+        assertThat(fruit).extracting(Product::getId).doesNotContain("p1");
+        assertThat(index.browse(CatalogIndex.Filter.all(), null, BY_PRICE, 0, 1, 10).getProducts())
+                .containsExactly(moved);
+    }
+
+    @Test
+    void removedProductsDropOutOfEveryResult() {
+        index.remove("p0");
+
+        CatalogIndex.Result result = index.browse(CatalogIndex.Filter.all(), null, BY_PRICE, 0, 1_000, 10);
+        assertThat(result.getTotal()).isEqualTo(499);
+        assertThat(result.getProducts()).extracting(Product::getId).doesNotContain("p0");
+        assertThat(index.find(CatalogIndex.Filter.eq(CatalogIndex.ORGANIC, true)))
+                .extracting(Product::getId).doesNotContain("p0");
+        assertThat(index.find(CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, false)))
+                .extracting(Product::getId).doesNotContain("p0");
+    }
+
+    @Test
+    void combinatorsAgreeWithAPlainScan() {
+        CatalogIndex.Filter filter = CatalogIndex.Filter.and(
+                CatalogIndex.Filter.in(CatalogIndex.CATEGORY, List.of("fruit", "bakery")),
+                CatalogIndex.Filter.or(
+                        CatalogIndex.Filter.eq(CatalogIndex.ORGANIC, true),
+                        CatalogIndex.Filter.eq(CatalogIndex.FARMER_ID, "farmer-3")),
+                CatalogIndex.Filter.not(CatalogIndex.Filter.eq(CatalogIndex.AVAILABLE, false)));
+
+        List<Product> expected = catalog.stream()
+                .filter(product -> List.of("fruit", "bakery").contains(product.getCategory()))
+                .filter(product -> product.isOrganic() || product.getFarmerId().equals("farmer-3"))
+                .filter(Product::isAvailable)
+                .toList();
+        assertThat(index.find(filter)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void unknownAttributeIsABadRequest() {
+        assertThatThrownBy(() -> index.find(CatalogIndex.Filter.eq("colour", "red")))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void indexingIsANoOpWhenDisabled() {
+        CatalogIndex disabled = new CatalogIndex();
+        disabled.index(product("x", "fruit", "farmer-1", BigDecimal.ONE));
+
+        assertThat(disabled.find(CatalogIndex.Filter.all())).isEmpty();
+    }
+
+    private static List<Product> sorted(List<Product> products, Comparator<Product> order) {
+        List<Product> copy = new ArrayList<>(products);
+        copy.sort(order);
+        return copy;
+    }
+
+    private static Product product(String id, String category, String farmerId, BigDecimal price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(id);
+        product.setCategory(category);
+        product.setFarmerId(farmerId);
+        product.setUnit("kg");
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,250 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.model.Money;
+import com.farmersmarket.model.Order;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.repository.OrderRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @Mock
+    private LiveUpdateService liveUpdateService;
+
+    @Mock
+    private RecommendationService recommendationService;
+
+    @Mock
+    private TrendingService trendingService;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @Test
+    void statusUpdateMatchesOnlyStatusesThatMayMoveThere() {
+        Order shipped = order("o1", "SHIPPED", 4L);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(shipped);
+
+        assertThat(orderService.updateOrderStatus("o1", "SHIPPED")).isSameAs(shipped);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(Order.class));
+        assertThat(query.getValue().getQueryObject().get("status", Document.class).get("$in"))
+                .isEqualTo(List.of("CONFIRMED"));
+        Document changes = update.getValue().getUpdateObject();
+        assertThat(changes.get("$set", Document.class).get("status")).isEqualTo("SHIPPED");
+        assertThat(changes.get("$inc", Document.class).get("version")).isEqualTo(1);
+        verify(liveUpdateService).orderChanged(shipped);
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void statusUpdateReportsTheCurrentStatusWhenTheTransitionIsRefused() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(null);
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(order("o1", "DELIVERED", 7L)));
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus("o1", "CANCELLED"))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Cannot change order status from DELIVERED to CANCELLED");
+        verifyNoInteractions(liveUpdateService);
+    }
+
+    @Test
+    void statusUpdateOfAMissingOrderIsNotFound() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(null);
+        when(orderRepository.findById("nope")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus("nope", "CONFIRMED"))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void unknownStatusIsABadRequestAndNeverReachesTheDatabase() {
+        assertThatThrownBy(() -> orderService.updateOrderStatus("o1", "LOST"))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(mongoTemplate, orderRepository);
+    }
+
+    @Test
+    void updateRetriesAgainstTheNewVersionAfterLosingARace() {
+        Order atV1 = order("o1", "PENDING", 1L);
+        Order atV2 = order("o1", "PENDING", 2L);
+        Order saved = order("o1", "PENDING", 3L);
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(atV1), Optional.of(atV2));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(null, saved);
+
+        Order details = new Order();
+        details.setNotes("leave at the gate");
+        assertThat(orderService.updateOrder("o1", details)).isSameAs(saved);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).findAndModify(queries.capture(), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Order.class));
+        List<Query> attempts = queries.getAllValues();
+        assertThat(attempts.get(0).getQueryObject().get("version")).isEqualTo(1L);
+        assertThat(attempts.get(1).getQueryObject().get("version")).isEqualTo(2L);
+        verify(liveUpdateService).orderChanged(saved);
+    }
+
+    @Test
+    void updateGivesUpWithAConflictAfterRepeatedRaces() {
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(order("o1", "PENDING", 1L)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(null);
+
+        Order details = new Order();
+        details.setNotes("ring twice");
+        assertThatThrownBy(() -> orderService.updateOrder("o1", details))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Order was modified concurrently, please retry");
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Order.class));
+        verifyNoInteractions(liveUpdateService);
+    }
+
+    @Test
+    void updateRevalidatesTheTransitionAgainstTheRereadOrder() {
+        // The first attempt saw PENDING, but the order was cancelled before the write landed
+        when(orderRepository.findById("o1")).thenReturn(
+                Optional.of(order("o1", "PENDING", 1L)), Optional.of(order("o1", "CANCELLED", 2L)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Order.class))).thenReturn(null);
+
+        Order details = new Order();
+        details.setStatus("CONFIRMED");
+        assertThatThrownBy(() -> orderService.updateOrder("o1", details))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Cannot change order status from CANCELLED to CONFIRMED");
+    }
+
+    @Test
+    void updateWithNothingChangedDoesNotWrite() {
+        Order current = order("o1", "PENDING", 1L);
+        current.setNotes("same");
+        when(orderRepository.findById("o1")).thenReturn(Optional.of(current));
+
+        Order details = new Order();
+        details.setStatus("PENDING");
+        details.setNotes("same");
+        assertThat(orderService.updateOrder("o1", details)).isSameAs(current);
+        verifyNoInteractions(mongoTemplate, liveUpdateService);
+    }
+
+    @Test
+    void createOrderTakesStockPerItemAndPricesFromTheCatalog() {
+        when(productService.updateProductQuantity("kale", 2)).thenReturn(product("kale", "3.50"));
+        when(productService.updateProductQuantity("eggs", 1)).thenReturn(product("eggs", "4.25"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order created = orderService.createOrder(newOrder(item("kale", 2, "0.01"), item("eggs", 1, "0.01")));
+
+        assertThat(created.getStatus()).isEqualTo("PENDING");
+        assertThat(created.getOrderItems().get(0).getTotalPrice()).isEqualTo(Money.parse("7.00"));
+        assertThat(created.getTotalAmount()).isEqualTo(Money.parse("11.25"));
+        verify(productService, never()).restoreProductQuantity(any(), anyInt());
+        verify(trendingService).orderPlaced(created);
+    }
+
+    @Test
+    void createOrderPutsBackStockTakenBeforeALaterItemFails() {
+        when(productService.updateProductQuantity("kale", 2)).thenReturn(product("kale", "3.50"));
+        when(productService.updateProductQuantity("eggs", 1)).thenReturn(product("eggs", "4.25"));
+        when(productService.updateProductQuantity("milk", 3))
+                .thenThrow(new ConflictException("Insufficient quantity for product: milk"));
+
+        assertThatThrownBy(() -> orderService.createOrder(
+                newOrder(item("kale", 2, null), item("eggs", 1, null), item("milk", 3, null))))
+                .isInstanceOf(ConflictException.class);
+
+        verify(productService).restoreProductQuantity("kale", 2);
+        verify(productService).restoreProductQuantity("eggs", 1);
+        verify(productService, never()).restoreProductQuantity(eq("milk"), anyInt());
+        verify(orderRepository, never()).save(any());
+        verifyNoInteractions(liveUpdateService, recommendationService, trendingService);
+    }
+
+    @Test
+    void createOrderPutsBackAllStockWhenTheSaveFails() {
+        when(productService.updateProductQuantity("kale", 2)).thenReturn(product("kale", "3.50"));
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("mongo down"));
+
+        assertThatThrownBy(() -> orderService.createOrder(newOrder(item("kale", 2, null))))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(productService).restoreProductQuantity("kale", 2);
+        verifyNoInteractions(liveUpdateService, recommendationService, trendingService);
+    }
+
+    private static Order newOrder(Order.OrderItem... items) {
+        Order order = new Order();
+        order.setStatus("DELIVERED");
+        order.setOrderItems(List.of(items));
+        return order;
+    }
+
+    private static Order.OrderItem item(String productId, int quantity, String clientPrice) {
+        return new Order.OrderItem(productId, productId, quantity, clientPrice != null ? Money.parse(clientPrice) : null);
+    }
+
+    private static Product product(String id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static Order order(String id, String status, Long version) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setVersion(version);
+        return order;
+    }
+}
@@ -0,0 +1,222 @@
+package com.farmersmarket.service;
+
+import com.farmersmarket.dto.BulkInventoryResponse;
+import com.farmersmarket.dto.InventoryAdjustment;
+import com.farmersmarket.dto.InventoryAdjustmentResult;
+import com.farmersmarket.exception.ConflictException;
+import com.farmersmarket.exception.NotFoundException;
+import com.farmersmarket.model.Product;
+import com.farmersmarket.repository.ProductRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private ProductRepository productRepository;
+
+    private MongoTemplate mongoTemplate;
+
+    private BulkOperations bulk;
+
+    private CatalogIndex catalogIndex;
+
+    private PriceHistoryService priceHistoryService;
+
+    private LiveUpdateService liveUpdateService;
+
+    private ProductService productService;
+
+    private final List<Query> bulkQueries = new ArrayList<>();
+
+    private final List<Update> bulkUpdates = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        catalogIndex = mock(CatalogIndex.class);
+        priceHistoryService = mock(PriceHistoryService.class);
+        liveUpdateService = mock(LiveUpdateService.class);
+
+        productService = new ProductService();
+        ReflectionTestUtils.setField(productService, "productRepository", productRepository);
+        ReflectionTestUtils.setField(productService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(productService, "catalogIndex", catalogIndex);
+        ReflectionTestUtils.setField(productService, "priceHistoryService", priceHistoryService);
+        ReflectionTestUtils.setField(productService, "liveUpdateService", liveUpdateService);
+
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            bulkQueries.add(invocation.getArgument(0));
+            bulkUpdates.add(invocation.getArgument(1));
+            return bulk;
+        });
+    }
+
+    @Test
+    void classifiesEachItemFromTheStateAfterTheBulkWrite() {
+        Product applied = product("applied", "farmer-1", 8);
+        Product shortOfStock = product("short", "farmer-1", 2);
+        Product overwritten = product("overwritten", "farmer-1", 40);
+        Product foreign = product("foreign", "farmer-2", 99);
+        afterBulkWrite(token -> {
+            applied.setLastAdjustment(token);
+            shortOfStock.setLastAdjustment("an-earlier-batch");
+            overwritten.setLastAdjustment("a-later-batch");
+            return List.of(applied, shortOfStock, overwritten, foreign);
+        });
+
+        BulkInventoryResponse response = productService.adjustInventory("farmer-1", false, List.of(
+                new InventoryAdjustment("applied", null, 3),
+                new InventoryAdjustment("short", null, -5),
+                new InventoryAdjustment("overwritten", 10, null),
+                new InventoryAdjustment("missing", null, 1),
+                new InventoryAdjustment("foreign", 0, null)));
+
+        Map<String, InventoryAdjustmentResult> results = response.getResults().stream()
+                .collect(Collectors.toMap(InventoryAdjustmentResult::getProductId, Function.identity()));
+        assertThat(results.get("applied").getStatus()).isEqualTo(InventoryAdjustmentResult.APPLIED);
+        assertThat(results.get("applied").getQuantity()).isEqualTo(8);
+        assertThat(results.get("short").getStatus()).isEqualTo(InventoryAdjustmentResult.INSUFFICIENT_STOCK);
+        assertThat(results.get("short").getQuantity()).isEqualTo(2);
+        assertThat(results.get("overwritten").getStatus()).isEqualTo(InventoryAdjustmentResult.NOT_APPLIED);
+        assertThat(results.get("missing").getStatus()).isEqualTo(InventoryAdjustmentResult.NOT_FOUND);
+        assertThat(results.get("missing").getQuantity()).isNull();
+        // Another farmer's stock level is not disclosed
+        assertThat(results.get("foreign").getStatus()).isEqualTo(InventoryAdjustmentResult.NOT_OWNER);
+        assertThat(results.get("foreign").getQuantity()).isNull();
+        assertThat(response.getApplied()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(InventoryAdjustmentResult::getProductId)
+                .containsExactly("applied", "short", "overwritten", "missing", "foreign");
+
+        verify(bulk).execute();
+        verify(catalogIndex).index(applied);
+        verify(priceHistoryService).record(applied);
+        verify(liveUpdateService).productChanged(applied);
+        verify(catalogIndex, times(1)).index(any());
+        verify(priceHistoryService, times(1)).record(any());
+        verify(liveUpdateService, times(1)).productChanged(any());
+    }
+
+    @Test
+    void farmerWritesAreScopedToTheirProductsAndDecrementsCannotGoNegative() {
+        afterBulkWrite(token -> List.of());
+
+        productService.adjustInventory("farmer-1", false, List.of(
+                new InventoryAdjustment("a", null, -4),
+                new InventoryAdjustment("b", null, 6),
+                new InventoryAdjustment("c", 12, null)));
+
+        Document decrement = bulkQueries.get(0).getQueryObject();
+        assertThat(decrement.get("farmerId")).isEqualTo("farmer-1");
+        assertThat(decrement.get("quantity", Document.class).get("$gte")).isEqualTo(4);
+        assertThat(bulkQueries.get(1).getQueryObject()).doesNotContainKey("quantity");
+        assertThat(bulkQueries.get(2).getQueryObject()).doesNotContainKey("quantity");
+
+        assertThat(bulkUpdates.get(0).getUpdateObject().get("$inc", Document.class).get("quantity")).isEqualTo(-4);
+        assertThat(bulkUpdates.get(1).getUpdateObject().get("$inc", Document.class).get("quantity")).isEqualTo(6);
+        assertThat(bulkUpdates.get(2).getUpdateObject().get("$set", Document.class).get("quantity")).isEqualTo(12);
+        // Every item in a batch is stamped with the same token
+        assertThat(bulkUpdates).extracting(ProductServiceTest::tokenOf).containsOnly(tokenOf(bulkUpdates.get(0)));
+    }
+
+    @Test
+    void adminMayAdjustAnyFarmersStock() {
+        Product foreign = product("foreign", "farmer-2", 5);
+        afterBulkWrite(token -> {
+            foreign.setLastAdjustment(token);
+            return List.of(foreign);
+        });
+
+        BulkInventoryResponse response = productService.adjustInventory("admin", true,
+                List.of(new InventoryAdjustment("foreign", 5, null)));
+
+        assertThat(bulkQueries.get(0).getQueryObject()).doesNotContainKey("farmerId");
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(InventoryAdjustmentResult.APPLIED);
+        assertThat(response.getApplied()).isEqualTo(1);
+    }
+
+    @Test
+    void quantityUpdateIsAGuardedIncrementNotAFullSave() {
+        Product after = product("kale", "farmer-1", 7);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Product.class))).thenReturn(after);
+
+        assertThat(productService.updateProductQuantity("kale", 3)).isSameAs(after);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(Product.class));
+        assertThat(query.getValue().getQueryObject().get("quantity", Document.class).get("$gte")).isEqualTo(3);
+        Document changes = update.getValue().getUpdateObject();
+        assertThat(changes.get("$inc", Document.class)).containsExactlyEntriesOf(Map.of("quantity", -3));
+        assertThat(changes.get("$set", Document.class)).containsOnlyKeys("updatedAt");
+        verify(productRepository, never()).save(any());
+        verify(catalogIndex).index(after);
+    }
+
+    @Test
+    void quantityUpdateThatFindsTooLittleStockIsAConflict() {
+        when(productRepository.findById("kale")).thenReturn(Optional.of(product("kale", "farmer-1", 1)));
+
+        assertThatThrownBy(() -> productService.updateProductQuantity("kale", 3))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Insufficient quantity for product: kale");
+        verifyNoInteractions(catalogIndex, liveUpdateService);
+    }
+
+    @Test
+    void quantityUpdateOfAMissingProductIsNotFound() {
+        when(productRepository.findById("kale")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.updateProductQuantity("kale", 3))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private void afterBulkWrite(Function<String, List<Product>> stored) {
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenAnswer(invocation -> stored.apply(tokenOf(bulkUpdates.get(0))));
+    }
+
+    private static String tokenOf(Update update) {
+        return (String) update.getUpdateObject().get("$set", Document.class).get("lastAdjustment");
+    }
+
+    private static Product product(String id, String farmerId, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(id);
+        product.setFarmerId(farmerId);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
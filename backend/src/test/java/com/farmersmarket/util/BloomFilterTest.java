@@ -0,0 +1,94 @@
+package com.farmersmarket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("customer-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("customer-" + i)).as("customer-" + i).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTheTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("customer-" + i);
+        }
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("stranger-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("key-" + i)).isFalse();
+        }
+    }
+
+    @Test
+    void toleratesDegenerateSizing() {
+        BloomFilter filter = new BloomFilter(0, 0.5);
+        filter.add("only");
+
+        assertThat(filter.mightContain("only")).isTrue();
+    }
+
+    @Test
+    void concurrentAddsSetEveryBit() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        int threads = 8;
+        int keysPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        filter.add(thread + ":" + i);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < keysPerThread; i++) {
+                assertThat(filter.mightContain(t + ":" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void hashSpreadsSimilarKeys() {
+        assertThat(BloomFilter.hash64("a")).isNotEqualTo(BloomFilter.hash64("b"));
+        assertThat(BloomFilter.hash64("ab")).isNotEqualTo(BloomFilter.hash64("ba"));
+        assertThat(BloomFilter.hash64("")).isEqualTo(BloomFilter.hash64(""));
+    }
+}
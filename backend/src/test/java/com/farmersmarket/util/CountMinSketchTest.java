@@ -0,0 +1,98 @@
+package com.farmersmarket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+    @Test
+    void neverUndercountsAndStaysWithinTheErrorBound() {
+        int width = 272;
+        CountMinSketch sketch = new CountMinSketch(width, 5);
+        Map<String, Long> exact = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < 5_000; i++) {
+            String key = "product-" + i;
+            long count = 1 + 10_000 / (i + 1); // a few heavy hitters and a long tail
+            sketch.add(key, count);
+            exact.put(key, count);
+            total += count;
+        }
+
+        long bound = (long) Math.ceil(Math.E / width * total);
+        int withinBound = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as(entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() <= bound) {
+                withinBound++;
+            }
+        }
+        // The bound holds with probability 1 - e^-5, i.e. for more than 99% of keys
+        assertThat(withinBound).isGreaterThan(exact.size() * 99 / 100);
+    }
+
+    @Test
+    void heavyHittersAreCountedNearlyExactly() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add("tail-" + i, 1);
+        }
+        sketch.add("tomatoes", 5_000);
+
+        assertThat(sketch.estimate("tomatoes")).isBetween(5_000L, 5_010L);
+    }
+
+    @Test
+    void unseenKeysEstimateZeroOnAnEmptySketch() {
+        assertThat(new CountMinSketch(64, 3).estimate("anything")).isZero();
+    }
+
+    @Test
+    void clearResetsEveryCounter() {
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+        sketch.add("kale", 7);
+        sketch.clear();
+
+        assertThat(sketch.estimate("kale")).isZero();
+    }
+
+    @Test
+    void clampsDimensionsAndReportsItsFootprint() {
+        assertThat(new CountMinSketch(0, 0).getSizeInBytes()).isEqualTo(16L * Long.BYTES);
+        assertThat(new CountMinSketch(100, 4).getSizeInBytes()).isEqualTo(400L * Long.BYTES);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        CountMinSketch sketch = new CountMinSketch(512, 4);
+        int threads = 8;
+        int addsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int i = 0; i < addsPerThread; i++) {
+                        sketch.add("apples", 1);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sketch.estimate("apples")).isEqualTo((long) threads * addsPerThread);
+    }
+}
@@ -0,0 +1,126 @@
+package com.farmersmarket.util;
+
+import com.farmersmarket.exception.BadRequestException;
+import com.farmersmarket.model.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MergePatchTest {
+
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "description", "price", "quantity",
+            "category", "imageUrls", "unit", "organic", "available");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MergePatch mergePatch;
+
+    @BeforeEach
+    void setUp() {
+        mergePatch = new MergePatch();
+        ReflectionTestUtils.setField(mergePatch, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(mergePatch, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void setsOnlyTheSuppliedFieldsConvertedToTheirEntityTypes() {
+        Document update = toUpdate("{\"price\": \"4.50\", \"quantity\": 12, \"organic\": false,"
+                + " \"imageUrls\": [\"a.jpg\"]}").getUpdateObject();
+
+        Document set = update.get("$set", Document.class);
+        assertThat(set).containsOnlyKeys("price", "quantity", "organic", "imageUrls");
+        assertThat(set.get("price")).isEqualTo(new BigDecimal("4.50"));
+        assertThat(set.get("quantity")).isEqualTo(12);
+        assertThat(set.get("organic")).isEqualTo(false);
+        assertThat(set.get("imageUrls")).isEqualTo(List.of("a.jpg"));
+        assertThat(update).doesNotContainKey("$unset");
+    }
+
+    @Test
+    void nullRemovesAnOptionalField() {
+        Document update = toUpdate("{\"imageUrls\": null, \"name\": \"Kale\"}").getUpdateObject();
+
+        assertThat(update.get("$unset", Document.class)).containsOnlyKeys("imageUrls");
+        assertThat(update.get("$set", Document.class)).containsOnlyKeys("name");
+    }
+
+    @Test
+    void nullCannotRemoveARequiredField() {
+        assertRejected("{\"price\": null}", "price must not be null");
+        assertRejected("{\"name\": null}", "name must not be blank");
+    }
+
+    @Test
+    void nullCannotRemoveAPrimitiveField() {
+        assertRejected("{\"organic\": null}", "organic cannot be removed");
+    }
+
+    @Test
+    void valuesAreHeldToTheEntityConstraints() {
+        assertRejected("{\"price\": 0}", "price must be greater than 0.0");
+        assertRejected("{\"quantity\": -1}", "quantity must be greater than or equal to 0");
+        assertRejected("{\"name\": \"   \"}", "name must not be blank");
+        assertRejected("{\"name\": \"" + "x".repeat(101) + "\"}", "name size must be between 0 and 100");
+    }
+
+    @Test
+    void valuesThatDoNotConvertAreRejected() {
+        assertRejected("{\"quantity\": \"lots\"}", "Invalid value for quantity");
+        assertRejected("{\"imageUrls\": {\"a\": 1}}", "Invalid value for imageUrls");
+    }
+
+    @Test
+    void fieldsOutsideTheAllowListAreRejectedEvenIfTheyExist() {
+        assertRejected("{\"farmerId\": \"someone-else\"}", "Field cannot be patched: farmerId");
+        assertRejected("{\"id\": \"x\"}", "Field cannot be patched: id");
+    }
+
+    @Test
+    void allowedNamesThatAreNotEntityFieldsAreRejected() {
+        assertThatThrownBy(() -> mergePatch.toUpdate(json("{\"colour\": \"red\"}"), Product.class, Set.of("colour")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Unknown field: colour");
+    }
+
+    @Test
+    void patchMustBeANonEmptyObject() {
+        String message = "A merge patch must be a non-empty JSON object";
+        assertRejected("{}", message);
+        assertRejected("[]", message);
+        assertRejected("\"name\"", message);
+        assertThatThrownBy(() -> mergePatch.toUpdate(null, Product.class, PATCHABLE_FIELDS))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage(message);
+    }
+
+    private Update toUpdate(String patch) {
+        return mergePatch.toUpdate(json(patch), Product.class, PATCHABLE_FIELDS);
+    }
+
+    private void assertRejected(String patch, String message) {
+        assertThatThrownBy(() -> toUpdate(patch))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage(message);
+    }
+
+    private JsonNode json(String text) {
+        try {
+            return objectMapper.readTree(text);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -25,6 +25,7 @@ export const AuthProvider = ({ children }) => {
         })
         .catch(() => {
           localStorage.removeItem("token");
+          localStorage.removeItem("refreshToken");
         })
         .finally(() => {
           setLoading(false);
@@ -38,6 +39,7 @@ export const AuthProvider = ({ children }) => {
     try {
       const response = await authService.login(email, password);
       localStorage.setItem("token", response.token);
+      localStorage.setItem("refreshToken", response.refreshToken);
       setUser(response);
       return response;
     } catch (error) {
@@ -49,6 +51,7 @@ export const AuthProvider = ({ children }) => {
     try {
       const response = await authService.register(userData);
       localStorage.setItem("token", response.token);
+      localStorage.setItem("refreshToken", response.refreshToken);
       setUser(response);
       return response;
     } catch (error) {
@@ -57,7 +60,12 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem("refreshToken");
+    if (refreshToken) {
+      authService.logout(refreshToken).catch(() => {});
+    }
     localStorage.removeItem("token");
+    localStorage.removeItem("refreshToken");
     setUser(null);
   };
 
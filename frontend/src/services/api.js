@@ -23,13 +23,44 @@ api.interceptors.request.use(
   }
 );
 
+// Access tokens are short-lived; on a 401 exchange the refresh token once
+// (shared by all requests that fail meanwhile) and retry the request.
+let refreshing = null;
+
+const refreshAccessToken = async () => {
+  const refreshToken = localStorage.getItem("refreshToken");
+  if (!refreshToken) {
+    throw new Error("No refresh token");
+  }
+  const response = await axios.post(`${API_BASE_URL}/auth/refresh`, {
+    refreshToken,
+  });
+  localStorage.setItem("token", response.data.token);
+  localStorage.setItem("refreshToken", response.data.refreshToken);
+  return response.data.token;
+};
+
 // Response interceptor to handle auth errors
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
-    if (error.response?.status === 401) {
-      localStorage.removeItem("token");
-      window.location.href = "/login";
+  async (error) => {
+    const original = error.config;
+    // Login, register and refresh report bad credentials as 401 themselves
+    const isAuthRequest = ["/auth/login", "/auth/register", "/auth/refresh"].includes(original?.url);
+    if (error.response?.status === 401 && original && !original._retried && !isAuthRequest) {
+      original._retried = true;
+      try {
+        refreshing = refreshing || refreshAccessToken();
+        const token = await refreshing;
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        localStorage.removeItem("token");
+        localStorage.removeItem("refreshToken");
+        window.location.href = "/login";
+      } finally {
+        refreshing = null;
+      }
     }
     return Promise.reject(error);
   }
@@ -11,6 +11,10 @@ export const authService = {
     return response.data;
   },
 
+  logout: async (refreshToken) => {
+    await api.post("/auth/logout", { refreshToken });
+  },
+
   getCurrentUser: async () => {
     const response = await api.get("/auth/me");
     return response.data;